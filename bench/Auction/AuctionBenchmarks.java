@@ -0,0 +1,160 @@
+package Auction;
+
+import jade.core.AID;
+
+import java.io.IOException;
+import java.util.*;
+
+// the hot paths of an auction run: bidding strategies, announcement metadata, subscriber matching, winner selection
+// all inputs come from a fixed seed -> two runs on the same machine measure exactly the same work
+//   java --enable-preview -cp out:jade_bin/jade.jar Auction.AuctionBenchmarks --save bench/baseline.tsv
+//   java --enable-preview -cp out:jade_bin/jade.jar Auction.AuctionBenchmarks --compare bench/baseline.tsv
+public class AuctionBenchmarks {
+
+    private static final long SEED = 42;
+    private static final int OPS = 200_000;
+
+    public static void main(String[] args) throws IOException {
+        strategies();
+        metadata();
+        notificationMatching();
+        winnerSelection();
+        Bench.finish(args);
+    }
+
+    // === BiddingStrategy.calculateBid ===
+
+    private static void strategies() {
+        Random rnd = new Random(SEED);
+        double[] prices = new double[1024];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 100 + rnd.nextInt(500); // stays below the cautious cutoff (>= 70% of 1000) -> no logging
+        }
+        double budget = 1000;
+        int[] i = {0};
+
+        // ONESHOT only bids once per instance -> a fresh one per op (what a new auction costs anyway)
+        Bench.run("strategy: ONESHOT (new + bid)", OPS,
+                () -> new OneShotStrategy().calculateBid(prices[i[0]++ & 1023], budget));
+        BiddingStrategy periodic = new PeriodicStrategy();
+        Bench.run("strategy: PERIODIC", OPS, () -> periodic.calculateBid(prices[i[0]++ & 1023], budget));
+        BiddingStrategy alwaysFirst = new AlwaysFirstStrategy();
+        Bench.run("strategy: ALWAYSFIRST", OPS, () -> alwaysFirst.calculateBid(prices[i[0]++ & 1023], budget));
+        BiddingStrategy cautious = new CautiousStrategy();
+        Bench.run("strategy: CAUTIOUS", OPS, () -> cautious.calculateBid(prices[i[0]++ & 1023], budget));
+    }
+
+    // === announcement metadata (BuyerAgent.extract is gone, specs are decoded once / parsed from legacy text) ===
+
+    private static void metadata() {
+        AuctionSpec spec = new AuctionSpec("6f1c2a40-8a0e-4c1b-9d55-3f1f2c7f9b10",
+                "The Hobbit", "Tolkien", "Fantasy", AuctionType.ENGLISH, 1000.0, 2);
+        String legacy = "NEW_AUCTION;" + spec;
+        byte[] encoded = AuctionCodec.encode(spec);
+
+        Bench.run("metadata: legacy AuctionSpec.parse", OPS, () -> AuctionSpec.parse(legacy));
+        Bench.run("metadata: codec decodeSpec", OPS, () -> AuctionCodec.decodeSpec(encoded));
+    }
+
+    // === NotificationAgent subscriber lookup ===
+
+    private static void notificationMatching() {
+        Random rnd = new Random(SEED);
+        String[] genres = new String[50];
+        String[] authors = new String[200];
+        for (int g = 0; g < genres.length; g++) genres[g] = "Genre" + g;
+        for (int a = 0; a < authors.length; a++) authors[a] = "Author" + a;
+
+        // 10k buyers following 2 genres + 1 author each (no container needed, only the index is used)
+        NotificationAgent notifier = new NotificationAgent();
+        for (int b = 0; b < 10_000; b++) {
+            notifier.subscribe("buyer" + b, new HashSet<>(Arrays.asList(
+                    genres[rnd.nextInt(genres.length)], genres[rnd.nextInt(genres.length)],
+                    authors[rnd.nextInt(authors.length)])));
+        }
+
+        String[][] announcements = new String[1024][];
+        for (int n = 0; n < announcements.length; n++) {
+            announcements[n] = new String[]{genres[rnd.nextInt(genres.length)], authors[rnd.nextInt(authors.length)]};
+        }
+        int[] i = {0};
+        int[] hits = {0};
+        Bench.run("notification: match 10k subscribers", OPS / 10, () -> {
+            String[] a = announcements[i[0]++ & 1023];
+            return notifier.forEachMatch(a[0], a[1], (buyer, match) -> hits[0]++);
+        });
+    }
+
+    // === winner selection of one round, 8 bidders (English/Dutch) and 100k sealed bids (Blind) ===
+    // (full GUIDs: local names need a running platform to resolve)
+
+    private static void winnerSelection() {
+        Random rnd = new Random(SEED);
+        AID seller = new AID("seller@bench", AID.ISGUID);
+        AID[] bidders = new AID[100];
+        double[] amounts = new double[bidders.length];
+        for (int b = 0; b < bidders.length; b++) {
+            bidders[b] = new AID("buyer" + b + "-bidder-bench@bench", AID.ISGUID);
+            amounts[b] = 1000 + rnd.nextInt(1000);
+        }
+
+        AuctionInfo english = new AuctionInfo(spec(AuctionType.ENGLISH), seller);
+        Bench.run("winner: ENGLISH round (8 bids)", OPS, () -> {
+            english.currentPrice = 1000;
+            english.gotNewBid = false;
+            english.bids.clear();
+            for (int b = 0; b < 8; b++) {
+                english.offerEnglish(bidders[b], amounts[b]);
+            }
+            return english.finalWinner;
+        });
+
+        AuctionInfo dutch = new AuctionInfo(spec(AuctionType.DUTCH), seller);
+        Bench.run("winner: DUTCH tie-break (8 accepts)", OPS, () -> {
+            dutch.bestAcceptedPrice = -1;
+            dutch.bestThreshold = -1;
+            dutch.bestAcceptor = null;
+            dutch.bids.clear();
+            for (int b = 0; b < 8; b++) {
+                dutch.offerDutch(bidders[b], 900, amounts[b]);
+            }
+            return dutch.bestAcceptor;
+        });
+
+        // BLIND: one book with 100k sealed bids, resolved by both pricing rules
+        BidBook log = new BidBook();
+        SealedBidBook book = new SealedBidBook(log);
+        for (int b = 0; b < 100_000; b++) {
+            AID bidder = new AID("buyer" + b + "-bidder-bench@bench", AID.ISGUID);
+            book.register(bidder);
+            book.submit(bidder, 1000 + rnd.nextInt(100_000) / 100.0);
+        }
+        Bench.run("winner: BLIND first price (100k sealed bids)", 200,
+                () -> book.resolve(SealedPricing.FIRST_PRICE, 1000));
+        Bench.run("winner: BLIND second price (100k sealed bids)", 200,
+                () -> book.resolve(SealedPricing.SECOND_PRICE, 1000));
+        int[] i = {0};
+        Bench.run("sealed bid: submit (replace, 100k book)", OPS, () -> {
+            if (log.size() > 1_000_000) log.clear(); // keep the log from growing over all rounds
+            return book.submit(bidders[i[0]++ % bidders.length], amounts[i[0] % amounts.length]);
+        });
+
+        // bid book: append + O(1) best, top-k over 100k bids
+        BidBook open = new BidBook();
+        int[] j = {0};
+        Bench.run("bid book: add (best kept on insert)", OPS, () -> {
+            if (open.size() == 100_000) open.clear();
+            return open.add(bidders[j[0]++ % bidders.length], amounts[j[0] % amounts.length]);
+        });
+        BidBook full = new BidBook();
+        for (int b = 0; b < 100_000; b++) {
+            full.add(bidders[b % bidders.length], 1000 + rnd.nextInt(100_000) / 100.0);
+        }
+        Bench.run("bid book: best (100k bids)", OPS, full::best);
+        Bench.run("bid book: top 10 (100k bids)", 200, () -> full.top(10));
+    }
+
+    private static AuctionSpec spec(AuctionType type) {
+        return new AuctionSpec("bench-" + type, "The Hobbit", "Tolkien", "Fantasy", type, 1000.0, 0);
+    }
+}
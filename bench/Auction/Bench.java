@@ -0,0 +1,92 @@
+package Auction;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Supplier;
+
+// tiny benchmark harness (no build tool in the repo, so no JMH): warmup, then timed rounds on one thread
+// reports time per op and heap bytes allocated per op (HotSpot thread allocation counter)
+// results can be saved as a baseline and later runs compared against it (see finish)
+final class Bench {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    static volatile Object sink; // keeps results alive so the JIT can't drop the work
+
+    private static final Map<String, double[]> results = new LinkedHashMap<>(); // name -> {ns/op, B/op}
+
+    private Bench() {}
+
+    static void run(String name, int opsPerRound, Supplier<Object> op) {
+        for (int i = 0; i < 5; i++) {
+            round(opsPerRound, op);
+        }
+        double bestNs = Double.MAX_VALUE;
+        double bytes = 0;
+        for (int i = 0; i < 10; i++) {
+            long allocBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            round(opsPerRound, op);
+            long elapsed = System.nanoTime() - start;
+            bytes = (double) (THREADS.getCurrentThreadAllocatedBytes() - allocBefore) / opsPerRound;
+            bestNs = Math.min(bestNs, (double) elapsed / opsPerRound);
+        }
+        results.put(name, new double[]{bestNs, bytes});
+        System.out.printf("%-45s %10.1f ns/op %10.1f B/op%n", name, bestNs, bytes);
+    }
+
+    private static void round(int ops, Supplier<Object> op) {
+        for (int i = 0; i < ops; i++) {
+            sink = op.get();
+        }
+    }
+
+    // handles the common command line of every benchmark main:
+    //   --save <file>                  write this run as the baseline (tab separated name, ns/op, B/op)
+    //   --compare <file> [--tolerance 0.25]   exit 1 if a benchmark got slower than baseline * (1 + tolerance)
+    static void finish(String[] args) throws IOException {
+        Path save = null, compare = null;
+        double tolerance = 0.25;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--save" -> save = Path.of(args[i + 1]);
+                case "--compare" -> compare = Path.of(args[i + 1]);
+                case "--tolerance" -> tolerance = Double.parseDouble(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        if (save != null) {
+            List<String> lines = new ArrayList<>();
+            lines.add("# java " + System.getProperty("java.version") + " / " + System.getProperty("os.arch")
+                    + " / " + Runtime.getRuntime().availableProcessors() + " cpus");
+            results.forEach((name, r) -> lines.add(String.format(Locale.ROOT, "%s\t%.1f\t%.1f", name, r[0], r[1])));
+            Files.write(save, lines);
+            System.out.printf("Baseline written to %s%n", save);
+        }
+
+        if (compare != null) {
+            int regressions = 0;
+            System.out.printf("%nvs. baseline %s (tolerance %.0f%%)%n", compare, tolerance * 100);
+            for (String line : Files.readAllLines(compare)) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+                String[] f = line.split("\t");
+                double[] now = results.get(f[0]);
+                if (now == null) continue; // benchmark was removed/renamed
+                double baseNs = Double.parseDouble(f[1]);
+                double change = (now[0] - baseNs) / baseNs;
+                boolean slower = change > tolerance;
+                if (slower) regressions++;
+                System.out.printf("%-45s %+8.1f%%%s%n", f[0], change * 100, slower ? "  << REGRESSION" : "");
+            }
+            if (regressions > 0) {
+                System.out.printf("%d regression(s)%n", regressions);
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package Auction;
+
+import java.io.IOException;
+
+// parse cost of the old semicolon strings vs. the binary codec
+// per announcement = what the notification agent + one buyer did with it, per bid = what the manager does with it
+public class CodecBenchmark {
+
+    private static final String LEGACY_ANNOUNCE = "6f1c2a40-8a0e-4c1b-9d55-3f1f2c7f9b10;"
+            + "NEW_AUCTION;Title=The Hobbit;Author=Tolkien;Genre=Fantasy;Type=ENGLISH;StartingPrice=1000.0;MinRating=2";
+    private static final String LEGACY_BID = "1234.56";
+    private static final String LEGACY_DUTCH_BID = "950.00;1080.85";
+
+    public static void main(String[] args) throws IOException {
+        AuctionSpec spec = new AuctionSpec("6f1c2a40-8a0e-4c1b-9d55-3f1f2c7f9b10",
+                "The Hobbit", "Tolkien", "Fantasy", AuctionType.ENGLISH, 1000.0, 2);
+        byte[] announce = AuctionCodec.encode(spec);
+        byte[] bid = AuctionCodec.encode(new Bid(spec.auctionId(), 1234.56, 1234.56));
+        byte[] dutchBid = AuctionCodec.encode(new Bid(spec.auctionId(), 950.0, 1080.85));
+        int ops = 200_000;
+
+        Bench.run("announce: legacy split/extract", ops, () -> legacyAnnouncement(LEGACY_ANNOUNCE));
+        Bench.run("announce: codec decode (notification+buyer)", ops, () -> {
+            AuctionSpec forNotification = AuctionCodec.decodeSpec(announce);
+            AuctionSpec forBuyer = AuctionCodec.decodeSpec(announce);
+            return forNotification.genre().length() + forBuyer.minRating() > 0 ? forBuyer : forNotification;
+        });
+        Bench.run("announce: codec encode", ops, () -> AuctionCodec.encode(spec));
+
+        Bench.run("bid: legacy parseDouble", ops, () -> Double.parseDouble(LEGACY_BID));
+        Bench.run("bid: codec decode", ops, () -> AuctionCodec.decodeBid(bid));
+        Bench.run("dutch bid: legacy split + parseDouble", ops,
+                () -> Double.parseDouble(LEGACY_DUTCH_BID.trim().split(";")[1]));
+        Bench.run("dutch bid: codec decode", ops, () -> AuctionCodec.decodeBid(dutchBid));
+
+        Bench.finish(args);
+    }
+
+    // what NotificationAgent + BuyerAgent used to do with one AUCTION_ANNOUNCE
+    private static Object legacyAnnouncement(String content) {
+        // NotificationAgent
+        String genre = "", author = "";
+        for (String part : content.split(";")) {
+            if (part.startsWith("Genre=")) genre = part.substring(6);
+            if (part.startsWith("Author=")) author = part.substring(7);
+        }
+        // BuyerAgent announcement handler
+        String[] parts = content.split(";", 2);
+        String metadata = parts[1];
+        String g = extract("Genre=", metadata);
+        String a = extract("Author=", metadata);
+        double startPrice = Double.parseDouble(extract("StartingPrice=", metadata));
+        String type = extract("Type=", metadata);
+        int minRating = metadata.contains("MinRating=") ? Integer.parseInt(extract("MinRating=", metadata)) : 0;
+        // BuyerAgent reputation handler, once more
+        int minRating2 = metadata.contains("MinRating=") ? Integer.parseInt(extract("MinRating=", metadata)) : 0;
+        return genre.length() + author.length() + g.length() + a.length() + type.length()
+                + (int) startPrice + minRating + minRating2;
+    }
+
+    private static String extract(String key, String metadata) {
+        for (String part : metadata.split(";")) {
+            if (part.startsWith(key)) {
+                return part.substring(key.length());
+            }
+        }
+        return "";
+    }
+}
@@ -1,6 +1,5 @@
 package Auction;
 
-import jade.core.AID;
 import jade.core.Agent;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
@@ -29,22 +28,27 @@ public class AuctionBidGuiAgent extends Agent {
             public void action() {
                 ACLMessage msg = receive(MessageTemplate.MatchOntology("AUCTION_ANNOUNCE"));
                 if (msg != null) {
-                    String[] parts = msg.getContent().split(";", 2);
-                    currentAuctionId = parts[0];
-                    String metadata = parts[1];
-                    // parse title, author, genre, startingPrice
-                    String title = extract("Title=", metadata);
-                    String author = extract("Author=", metadata);
-                    double start = Double.parseDouble(extract("StartingPrice=", metadata));
-                    isDutch = metadata.contains("Type=DUTCH");
+                    AuctionSpec spec;
+                    try {
+                        spec = AuctionCodec.decodeSpec(msg.getByteSequenceContent());
+                    } catch (IllegalArgumentException e) {
+                        return; // unreadable announcement, keep showing what we have
+                    }
+                    currentAuctionId = spec.auctionId();
+                    // title, author, genre, startingPrice
+                    String title = spec.title();
+                    String author = spec.author();
+                    double start = spec.startingPrice();
+                    isDutch = spec.type() == AuctionType.DUTCH;
 
                     currentPrice = start;
                     auctionActive = true;
 
                     // create the subscription message to the notif_agent
                     ACLMessage reg = new ACLMessage(ACLMessage.SUBSCRIBE);
-                    reg.addReceiver(new AID("auction-manager", AID.ISLOCALNAME));
+                    reg.addReceiver(AuctionRouter.managerOf(currentAuctionId));
                     reg.setOntology("REGISTER");
+                    reg.setConversationId(currentAuctionId);
                     reg.setContent(currentAuctionId);
                     send(reg);
 
@@ -67,10 +71,36 @@ public class AuctionBidGuiAgent extends Agent {
         // if call for proposal from a bidder -> update the bid display
         addBehaviour(new jade.core.behaviours.CyclicBehaviour() {
             public void action() {
-                ACLMessage cfp = receive(MessageTemplate.MatchPerformative(ACLMessage.CFP));
-                if (cfp != null && auctionActive) {
-                    currentPrice = Double.parseDouble(cfp.getContent());
-                    SwingUtilities.invokeLater(() -> priceLabel.setText("Current bid: " + currentPrice));
+                ACLMessage cfp = receive(MessageTemplate.or(
+                        MessageTemplate.MatchPerformative(ACLMessage.CFP),
+                        MessageTemplate.or(
+                                MessageTemplate.MatchPerformative(ACLMessage.CANCEL),
+                                MessageTemplate.MatchPerformative(ACLMessage.REJECT_PROPOSAL))));
+                if (cfp != null) {
+                    // close notices only matter to bidding agents, the gui goes by AUCTION_RESULT -> just drop them
+                    if (cfp.getPerformative() == ACLMessage.CANCEL) return;
+                    if (cfp.getPerformative() == ACLMessage.REJECT_PROPOSAL) {
+                        Bid refused;
+                        try {
+                            refused = AuctionCodec.decodeBid(cfp.getByteSequenceContent());
+                        } catch (IllegalArgumentException e) {
+                            return;
+                        }
+                        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame,
+                                String.format("Bid %.2f refused, the minimum is %.2f", refused.price(), refused.limit())));
+                        return;
+                    }
+                    Cfp call;
+                    try {
+                        call = AuctionCodec.decodeCfp(cfp.getByteSequenceContent());
+                    } catch (IllegalArgumentException e) {
+                        return;
+                    }
+                    // other running auctions can still send CFPs, only show the one we follow
+                    if (auctionActive && call.auctionId().equals(currentAuctionId)) {
+                        currentPrice = call.price();
+                        SwingUtilities.invokeLater(() -> priceLabel.setText("Current bid: " + currentPrice));
+                    }
                 } else {
                     block();
                 }
@@ -81,28 +111,23 @@ public class AuctionBidGuiAgent extends Agent {
         addBehaviour(new jade.core.behaviours.CyclicBehaviour() {
             public void action() {
                 ACLMessage res = receive(MessageTemplate.MatchOntology("AUCTION_RESULT"));
-                if (res != null && auctionActive) {
-                    String content = res.getContent();
-                    // detect user winning -> regex detection for winning text... for now
-                    if (content.startsWith("You won") || content.contains("Winner: user ")) {
-                        double paid;
-
-                        // extract price from the final winning text & update the GUI
-                        // 2 cases, to handle winning text inconsistency, will fix with a consistent winning message
-                        if (content.startsWith("You won") ){
-                            paid = Double.parseDouble(content.replaceAll(".* at price (\\d+\\.?\\d*).*", "$1"));
-                            SwingUtilities.invokeLater(() ->
-                                    JOptionPane.showMessageDialog(frame, content)
-                            );
-                        }
-                        else{
-                            paid = Double.parseDouble(
-                                    content.replaceAll(".*Final Price: (\\d+\\.?\\d*).*", "$1")
-                            );
-                            SwingUtilities.invokeLater(() ->
-                                    JOptionPane.showMessageDialog(frame, "You won this auction!")
-                            );
-                        }
+                if (res != null) {
+                    AuctionResult result;
+                    try {
+                        result = AuctionCodec.decodeResult(res.getByteSequenceContent());
+                    } catch (IllegalArgumentException e) {
+                        return;
+                    }
+                    if (!auctionActive || !result.auctionId().equals(currentAuctionId)) {
+                        return; // result of an auction we're not showing
+                    }
+                    // detect user winning
+                    if (getLocalName().equals(result.winner())) {
+                        double paid = result.price();
+                        SwingUtilities.invokeLater(() ->
+                                JOptionPane.showMessageDialog(frame,
+                                        String.format("You won %s auction for \"%s\" at price %.2f", result.type(), result.title(), paid))
+                        );
                         budget -= paid;
                         SwingUtilities.invokeLater(() -> budgetLabel.setText("Budget: " + budget));
                     }
@@ -169,20 +194,18 @@ public class AuctionBidGuiAgent extends Agent {
 
                     // craft + send message
                     ACLMessage bidMsg = new ACLMessage(ACLMessage.PROPOSE);
-                    bidMsg.addReceiver(new AID("auction-manager", AID.ISLOCALNAME));
+                    bidMsg.addReceiver(AuctionRouter.managerOf(currentAuctionId));
                     bidMsg.setOntology("USER_BID");
                     if (isDutch){
                         bidMsg.setOntology("BID_ACCEPTED");
                     }
                     bidMsg.setConversationId(currentAuctionId);
-                    bidMsg.setContent(String.valueOf(yourBid));
+                    bidMsg.setByteSequenceContent(AuctionCodec.encode(new Bid(currentAuctionId, yourBid, yourBid)));
                     send(bidMsg);
 
                     currentPrice = yourBid;
                     SwingUtilities.invokeLater(()-> priceLabel.setText("Current bid: "+currentPrice));
-                    String cname = ColorUtil.colorize(getLocalName());
-                    System.out.printf("[%s] Bid %.2f (prev highest: %.2f)%n",
-                            cname, yourBid, prevHigh);
+                    Log.info(getLocalName(), "Bid %.2f (prev highest: %.2f)", yourBid, prevHigh);
 
                     JOptionPane.showMessageDialog(frame, "Bid of " + yourBid + " sent!");
                 }
@@ -199,14 +222,4 @@ public class AuctionBidGuiAgent extends Agent {
 
         frame.setVisible(true);
     }
-
-    // utill: pull a key from metadata (semicolon‐separated)
-    private String extract(String key, String metadata) {
-        for (String part : metadata.split(";")) {
-            if (part.startsWith(key)) {
-                return part.substring(key.length());
-            }
-        }
-        return "";
-    }
 }
@@ -0,0 +1,242 @@
+package Auction;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// compact binary format for everything the auction agents send each other (specs, CFPs, bids, results)
+// -> goes into the ACLMessage byte content, every receiver decodes it exactly once into an immutable record
+public final class AuctionCodec {
+
+    private static final byte SPEC = 1;
+    private static final byte CFP = 2;
+    private static final byte BID = 3;
+    private static final byte RESULT = 4;
+
+    private static final AuctionType[] TYPES = AuctionType.values();
+    private static final SealedPricing[] PRICINGS = SealedPricing.values();
+
+    private AuctionCodec() {}
+
+    // === encoding ===
+
+    static byte[] encode(AuctionSpec spec) {
+        byte[] id = utf8(spec.auctionId());
+        byte[] title = utf8(spec.title());
+        byte[] author = utf8(spec.author());
+        byte[] genre = utf8(spec.genre());
+        ByteBuffer buf = ByteBuffer.allocate(1 + size(id) + size(title) + size(author) + size(genre) + 1 + 8 + 1 + 1 + 8 + 8);
+        buf.put(SPEC);
+        putString(buf, id);
+        putString(buf, title);
+        putString(buf, author);
+        putString(buf, genre);
+        buf.put((byte) spec.type().ordinal());
+        buf.putDouble(spec.startingPrice());
+        buf.put((byte) spec.minRating());
+        buf.put((byte) spec.pricing().ordinal());
+        buf.putLong(spec.startAt());
+        buf.putLong(spec.endAt());
+        return buf.array();
+    }
+
+    static byte[] encode(Cfp cfp) {
+        byte[] id = utf8(cfp.auctionId());
+        ByteBuffer buf = ByteBuffer.allocate(1 + size(id) + 4 + 8);
+        buf.put(CFP);
+        putString(buf, id);
+        buf.putInt(cfp.round());
+        buf.putDouble(cfp.price());
+        return buf.array();
+    }
+
+    static byte[] encode(Bid bid) {
+        byte[] id = utf8(bid.auctionId());
+        ByteBuffer buf = ByteBuffer.allocate(1 + size(id) + 8 + 8);
+        buf.put(BID);
+        putString(buf, id);
+        buf.putDouble(bid.price());
+        buf.putDouble(bid.limit());
+        return buf.array();
+    }
+
+    static byte[] encode(AuctionResult result) {
+        byte[] id = utf8(result.auctionId());
+        byte[] winner = utf8(result.winner());
+        byte[] title = utf8(result.title());
+        ByteBuffer buf = ByteBuffer.allocate(1 + size(id) + 1 + size(winner) + 8 + size(title));
+        buf.put(RESULT);
+        putString(buf, id);
+        buf.put((byte) result.type().ordinal());
+        putString(buf, winner);
+        buf.putDouble(result.price());
+        putString(buf, title);
+        return buf.array();
+    }
+
+    // === decoding ===
+
+    // a malformed or truncated payload -> IllegalArgumentException, like any other message that isn't ours
+    static AuctionSpec decodeSpec(byte[] data) {
+        ByteBuffer buf = open(data, SPEC);
+        try {
+            // older senders: no pricing byte / no schedule
+            return new AuctionSpec(getString(buf), getString(buf), getString(buf), getString(buf),
+                    TYPES[ordinal(buf, TYPES.length)], buf.getDouble(), buf.get(),
+                    buf.hasRemaining() ? PRICINGS[ordinal(buf, PRICINGS.length)] : SealedPricing.FIRST_PRICE,
+                    buf.remaining() >= 16 ? buf.getLong() : 0, buf.remaining() >= 8 ? buf.getLong() : 0);
+        } catch (BufferUnderflowException e) {
+            throw truncated(SPEC);
+        }
+    }
+
+    static Cfp decodeCfp(byte[] data) {
+        ByteBuffer buf = open(data, CFP);
+        try {
+            return new Cfp(getString(buf), buf.getInt(), buf.getDouble());
+        } catch (BufferUnderflowException e) {
+            throw truncated(CFP);
+        }
+    }
+
+    static Bid decodeBid(byte[] data) {
+        ByteBuffer buf = open(data, BID);
+        try {
+            return new Bid(getString(buf), buf.getDouble(), buf.getDouble());
+        } catch (BufferUnderflowException e) {
+            throw truncated(BID);
+        }
+    }
+
+    static AuctionResult decodeResult(byte[] data) {
+        ByteBuffer buf = open(data, RESULT);
+        try {
+            return new AuctionResult(getString(buf), TYPES[ordinal(buf, TYPES.length)], getString(buf), buf.getDouble(),
+                    getString(buf));
+        } catch (BufferUnderflowException e) {
+            throw truncated(RESULT);
+        }
+    }
+
+    // === helpers ===
+
+    private static ByteBuffer open(byte[] data, byte expected) {
+        if (data == null || data.length == 0 || data[0] != expected) {
+            throw new IllegalArgumentException("Not an encoded message of kind " + expected);
+        }
+        return ByteBuffer.wrap(data, 1, data.length - 1);
+    }
+
+    private static IllegalArgumentException truncated(byte kind) {
+        return new IllegalArgumentException("Truncated message of kind " + kind);
+    }
+
+    private static int ordinal(ByteBuffer buf, int count) {
+        int ordinal = buf.get();
+        if (ordinal < 0 || ordinal >= count) {
+            throw new IllegalArgumentException("Invalid enum ordinal " + ordinal);
+        }
+        return ordinal;
+    }
+
+    // null strings are written as length -1; the length is a short -> longer ones are refused, not wrapped around
+    private static byte[] utf8(String s) {
+        if (s == null) return null;
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        if (b.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("String too long to encode: " + b.length + " bytes");
+        }
+        return b;
+    }
+
+    private static int size(byte[] s) {
+        return 2 + (s == null ? 0 : s.length);
+    }
+
+    private static void putString(ByteBuffer buf, byte[] s) {
+        if (s == null) {
+            buf.putShort((short) -1);
+            return;
+        }
+        buf.putShort((short) s.length);
+        buf.put(s);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        short len = buf.getShort();
+        if (len == -1) return null;
+        if (len < 0 || len > buf.remaining()) {
+            throw new IllegalArgumentException("Invalid string length " + len + " (" + buf.remaining() + " bytes left)");
+        }
+        String s = new String(buf.array(), buf.position(), len, StandardCharsets.UTF_8);
+        buf.position(buf.position() + len);
+        return s;
+    }
+}
+
+// what a seller puts up for auction, auctionId is null until the manager starts it
+// pricing only matters for BLIND auctions; startAt/endAt are epoch millis, 0 = start right away / no hard end
+record AuctionSpec(String auctionId, String title, String author, String genre,
+                   AuctionType type, double startingPrice, int minRating, SealedPricing pricing, long startAt, long endAt) {
+
+    AuctionSpec(String auctionId, String title, String author, String genre,
+                AuctionType type, double startingPrice, int minRating, SealedPricing pricing) {
+        this(auctionId, title, author, genre, type, startingPrice, minRating, pricing, 0, 0);
+    }
+
+    AuctionSpec(String auctionId, String title, String author, String genre,
+                AuctionType type, double startingPrice, int minRating) {
+        this(auctionId, title, author, genre, type, startingPrice, minRating, SealedPricing.FIRST_PRICE);
+    }
+
+    AuctionSpec withId(String id) {
+        return new AuctionSpec(id, title, author, genre, type, startingPrice, minRating, pricing, startAt, endAt);
+    }
+
+    // old text format "NEW_AUCTION;Title=...;Author=...;..." -> still accepted from outside, parsed in a single pass
+    static AuctionSpec parse(String text) {
+        String title = "", author = "", genre = "";
+        AuctionType type = AuctionType.ENGLISH;
+        double start = 0;
+        int minRating = 0;
+        SealedPricing pricing = SealedPricing.FIRST_PRICE;
+        long startAt = 0, endAt = 0;
+        for (String part : text.split(";")) {
+            int eq = part.indexOf('=');
+            if (eq < 0) continue;
+            String value = part.substring(eq + 1);
+            switch (part.substring(0, eq)) {
+                case "Title" -> title = value;
+                case "Author" -> author = value;
+                case "Genre" -> genre = value;
+                case "Type" -> type = AuctionType.valueOf(value.toUpperCase());
+                case "StartingPrice" -> start = Double.parseDouble(value);
+                case "MinRating" -> minRating = Integer.parseInt(value);
+                case "Pricing" -> pricing = SealedPricing.valueOf(value.toUpperCase());
+                case "StartAt" -> startAt = Long.parseLong(value);
+                case "EndAt" -> endAt = Long.parseLong(value);
+            }
+        }
+        return new AuctionSpec(null, title, author, genre, type, start, minRating, pricing, startAt, endAt);
+    }
+
+    // same shape as the old metadata string, used in the logs
+    @Override
+    public String toString() {
+        String text = String.format("Title=%s;Author=%s;Genre=%s;Type=%s;StartingPrice=%.2f;MinRating=%d",
+                title, author, genre, type, startingPrice, minRating);
+        if (type == AuctionType.BLIND) text += ";Pricing=" + pricing;
+        if (startAt > 0) text += ";StartAt=" + startAt;
+        if (endAt > 0) text += ";EndAt=" + endAt;
+        return text;
+    }
+}
+
+// call for proposals for one round of an auction
+record Cfp(String auctionId, int round, double price) {}
+
+// a bid, limit is the bidder's acceptance threshold for DUTCH (equal to price otherwise)
+record Bid(String auctionId, double price, double limit) {}
+
+// final outcome of an auction, winner is the buyer's name (null if nobody won)
+record AuctionResult(String auctionId, AuctionType type, String winner, double price, String title) {}
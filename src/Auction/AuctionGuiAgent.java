@@ -1,8 +1,9 @@
 package Auction;
 
-import jade.core.AID;
 import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
 
 import javax.swing.*;
 import java.awt.*;
@@ -12,20 +13,43 @@ public class AuctionGuiAgent extends Agent {
 
     protected void setup() {
         SwingUtilities.invokeLater(this::createAndShowGUI);
+
+        // the manager's queue was full -> tell the user when to try again
+        addBehaviour(new CyclicBehaviour() {
+            public void action() {
+                ACLMessage msg = receive(MessageTemplate.and(
+                        MessageTemplate.MatchPerformative(ACLMessage.REFUSE), MessageTemplate.MatchOntology("NEW_AUCTION")));
+                if (msg != null) {
+                    AuctionSpec spec;
+                    try {
+                        spec = AuctionCodec.decodeSpec(msg.getByteSequenceContent());
+                    } catch (IllegalArgumentException e) {
+                        return;
+                    }
+                    long seconds = Math.max(1, Long.parseLong(msg.getUserDefinedParameter("retry-after")) / 1000);
+                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                            "Too many auctions waiting, \"" + spec.title() + "\" was not created. Try again in about " + seconds + " s."));
+                } else {
+                    block();
+                }
+            }
+        });
     }
 
     private void createAndShowGUI() {
         JFrame frame = new JFrame("Book Auction Publisher");
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setSize(400, 300);
-        frame.setLayout(new GridLayout(7, 2));
+        frame.setSize(400, 360);
+        frame.setLayout(new GridLayout(9, 2));
 
         JTextField titleField = new JTextField();
         JTextField authorField = new JTextField();
         JTextField genreField = new JTextField();
-        JComboBox<String> typeDropdown = new JComboBox<>(new String[]{"ENGLISH", "DUTCH", "BLIND"});
+        JComboBox<String> typeDropdown = new JComboBox<>(new String[]{"ENGLISH", "DUTCH", "BLIND", "BLIND (2nd price)"});
         JTextField priceField = new JTextField("1000.0");
         JTextField minRatingField = new JTextField("0");
+        JTextField startsInField = new JTextField("0");
+        JTextField runsForField = new JTextField("0");
 
         JButton submitButton = new JButton("Create Auction");
 
@@ -41,6 +65,10 @@ public class AuctionGuiAgent extends Agent {
         frame.add(priceField);
         frame.add(new JLabel("Min Rating (0–5):"));
         frame.add(minRatingField);
+        frame.add(new JLabel("Starts in (s, 0 = now):"));
+        frame.add(startsInField);
+        frame.add(new JLabel("Runs for (s, 0 = open):"));
+        frame.add(runsForField);
         frame.add(new JLabel(""));
         frame.add(submitButton);
 
@@ -66,14 +94,25 @@ public class AuctionGuiAgent extends Agent {
                     JOptionPane.showMessageDialog(frame, "Minimum rating must be between 0 and 5.");
                     return;
                 }
+                long startsIn = Long.parseLong(startsInField.getText().trim());
+                long runsFor = Long.parseLong(runsForField.getText().trim());
+                if (startsIn < 0 || runsFor < 0) {
+                    JOptionPane.showMessageDialog(frame, "Start and duration can't be negative.");
+                    return;
+                }
+                long startAt = startsIn > 0 ? System.currentTimeMillis() + startsIn * 1000 : 0;
+                long endAt = runsFor > 0 ? Math.max(startAt, System.currentTimeMillis()) + runsFor * 1000 : 0;
 
                 // craft auction send for the manager
+                boolean vickrey = type.startsWith("BLIND (");
+                AuctionSpec spec = new AuctionSpec(
+                        null, title, author, genre, vickrey ? AuctionType.BLIND : AuctionType.valueOf(type), startPrice, rating,
+                        vickrey ? SealedPricing.SECOND_PRICE : SealedPricing.FIRST_PRICE, startAt, endAt
+                );
                 ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
-                msg.addReceiver(new AID("auction-manager", AID.ISLOCALNAME));
-                msg.setContent(String.format(
-                        "NEW_AUCTION;Title=%s;Author=%s;Genre=%s;Type=%s;StartingPrice=%.2f;MinRating=%d",
-                        title, author, genre, type, startPrice, rating
-                ));
+                msg.addReceiver(AuctionRouter.managerFor(spec));
+                msg.setOntology("NEW_AUCTION");
+                msg.setByteSequenceContent(AuctionCodec.encode(spec));
                 send(msg);
 
                 JOptionPane.showMessageDialog(frame, "Auction created!");
@@ -82,9 +121,14 @@ public class AuctionGuiAgent extends Agent {
                 genreField.setText("");
                 priceField.setText("1000.0");
                 minRatingField.setText("0");
+                startsInField.setText("0");
+                runsForField.setText("0");
 
             } catch (NumberFormatException ex) {
-                JOptionPane.showMessageDialog(frame, "Invalid number format for price or rating.");
+                JOptionPane.showMessageDialog(frame, "Invalid number format for price, rating or times.");
+            } catch (IllegalArgumentException ex) {
+                // the codec refuses fields it can't carry (e.g. a title longer than 32767 bytes)
+                JOptionPane.showMessageDialog(frame, ex.getMessage());
             }
         });
 
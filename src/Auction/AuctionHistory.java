@@ -0,0 +1,45 @@
+package Auction;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// compact record of finished auctions, bounded -> the oldest ones are dropped once it's full
+// (keeps the manager's memory flat no matter how long it runs; of the bid book only the top bids survive)
+class AuctionHistory {
+
+    private final Map<String, AuctionSummary> closed;
+
+    AuctionHistory(int capacity) {
+        this.closed = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AuctionSummary> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    static final int TOP_BIDS = 3;
+
+    void add(AuctionInfo ai) {
+        String winner = ai.finalWinner == null ? null : ai.finalWinner.getLocalName().split("-bidder-")[0];
+        closed.put(ai.id, new AuctionSummary(ai.id, ai.type, ai.spec.title(), winner,
+                ai.currentPrice, ai.totalRounds, ai.bids.size(), ai.bids.top(TOP_BIDS), System.currentTimeMillis()));
+    }
+
+    boolean contains(String auctionId) {
+        return closed.containsKey(auctionId);
+    }
+
+    AuctionSummary get(String auctionId) {
+        return closed.get(auctionId);
+    }
+
+    int size() {
+        return closed.size();
+    }
+}
+
+// what is left of an auction once it's done
+record AuctionSummary(String auctionId, AuctionType type, String title, String winner,
+                      double finalPrice, int rounds, int bids, List<BidBook.Entry> topBids, long closedAt) {}
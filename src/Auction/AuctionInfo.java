@@ -2,14 +2,13 @@ package Auction;
 
 import jade.core.AID;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 // === AuctionInfo for managing each auction ===
 class AuctionInfo {
     String id;
     AID seller;
-    String metadata;
+    AuctionSpec spec;
     double currentPrice;
     AID highestBidder;
     boolean active;
@@ -18,14 +17,68 @@ class AuctionInfo {
     int totalRounds = 0;
     int roundsWithoutBid = 0;  // track consecutive empty rounds
     AuctionType type;
+    final BidBook bids = new BidBook();                  // every accepted bid, all types
+    final long startedAt = System.nanoTime();
 
+    // state of the round that is currently open (bids are collected as they arrive, the round deadline closes it)
+    boolean roundOpen = false;
+    long roundOpenedAt;                                  // nanoTime, for the round duration metric
+    boolean gotNewBid = false;                           // ENGLISH
+    ProxyBids proxies;                                   // ENGLISH - maxima sealed at registration
+    AID bestAcceptor;                                    // DUTCH - best accept so far, see offerDutch
+    double bestAcceptedPrice = -1;
+    double bestThreshold = -1;
+    int clockTicks;                                      // DUTCH - ticks since the clock started
+    long nextTickAt;                                     // DUTCH - nanoTime the next tick is due
+    DutchThresholds dutchThresholds;                     // DUTCH - thresholds sealed at registration
+    SealedBidBook sealedBook;                            // BLIND - bids of the whole window
 
-    AuctionInfo(String id, AID seller, String metadata, double startPrice, AuctionType type) {
-        this.id = id;
+
+    AuctionInfo(AuctionSpec spec, AID seller) {
+        this.id = spec.auctionId();
         this.seller = seller;
-        this.metadata = metadata;
-        this.currentPrice = startPrice;
-        this.type = type;
+        this.spec = spec;
+        this.currentPrice = spec.startingPrice();
+        this.type = spec.type();
         this.active = true;
+        this.proxies = type == AuctionType.ENGLISH ? new ProxyBids() : null;
+        this.dutchThresholds = type == AuctionType.DUTCH ? new DutchThresholds() : null;
+        this.sealedBook = type == AuctionType.BLIND ? new SealedBidBook(bids) : null;
+    }
+
+    // === bids of the open round ===
+
+    // ENGLISH: only a higher bid counts (and goes into the book), it takes the lead; false -> too low / stale
+    boolean offerEnglish(AID bidder, double price) {
+        if (!(price > currentPrice)) return false;
+        bids.add(bidder, price);
+        currentPrice = price;
+        highestBidder = bidder;
+        finalWinner = bidder; // track final winner
+        gotNewBid = true;
+        return true;
+    }
+
+    // ENGLISH: a proxy bid the manager placed, takes the lead even at the opening price
+    void leadEnglish(AID bidder, double price) {
+        bids.add(bidder, price);
+        currentPrice = price;
+        highestBidder = bidder;
+        finalWinner = bidder;
+        gotNewBid = true;
+    }
+
+    // DUTCH: accepts seen together are ranked the same way whatever order they arrived in:
+    // higher accepted price (it was called earlier) -> higher threshold -> lower bidder name
+    void offerDutch(AID bidder, double price, double limit) {
+        bids.add(bidder, price);
+        int cmp = bestAcceptor == null ? 1 : Double.compare(price, bestAcceptedPrice);
+        if (cmp == 0) cmp = Double.compare(limit, bestThreshold);
+        if (cmp == 0) cmp = bestAcceptor.getName().compareTo(bidder.getName());
+        if (cmp > 0) {
+            bestAcceptedPrice = price;
+            bestThreshold = limit;
+            bestAcceptor = bidder;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,427 @@
+package Auction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// append-only binary journal of one manager's auctions: lifecycle events + every accepted bid
+// the manager only enqueues (no encoding, no I/O on its thread); a writer thread encodes batches into a direct
+// buffer, writes them through the file channel and fsyncs once per batch
+// - <dir>/journal-<seq>.log : the events since the last snapshot
+// - <dir>/snapshot.bin      : [magic int][seq int] + the records that rebuild what was still live (queued requests +
+//                             running auctions), written every SNAPSHOT_EVERY events -> replay on startup stays bounded
+// - record: [len int][crc32 of the body int] body = [type byte][time long][auctionId str][agent str][price double]
+//   [limit double][round int][spec len int][encoded spec], strings as [len short][utf8], null as length -1
+// -Dauction.journal=false turns it off, -Dauction.journal.dir=<dir> (default data/journal, one sub dir per manager),
+// -Dauction.journal.recover=false starts empty (the old journal is dropped by the first snapshot)
+final class AuctionJournal {
+
+    // record types
+    static final byte QUEUED = 1;        // agent = seller, spec
+    static final byte STARTED = 2;       // agent = seller, spec (with id)
+    static final byte REGISTERED = 3;    // agent = bidder, price = sealed Dutch threshold / English proxy maximum or 0
+    static final byte DEREGISTERED = 4;  // agent = bidder
+    static final byte BID = 5;           // agent = bidder, price, limit
+    static final byte ROUND = 6;         // round, price (round opened / Dutch tick)
+    static final byte CLOSED = 7;        // agent = winner buyer or null, price
+    static final byte DEQUEUED = 8;      // agent = seller, spec (refused to make room in a full queue)
+
+    private static final int MAGIC = 0x4A524E31; // "JRN1"
+    private static final int SNAPSHOT_EVERY = 50_000;  // events between two snapshots
+    private static final long FLUSH_INTERVAL_MS = 50;  // max time an event waits for fsync
+
+    // one journal record as the manager hands it over (nothing is encoded on the manager's thread)
+    record Event(byte type, long time, String auctionId, String agent, double price, double limit, int round, AuctionSpec spec) {}
+
+    // a running auction as the journal left it: how it started, who is registered (last REGISTERED of each),
+    // the last round/tick and every accepted bid
+    record LiveAuction(Event started, List<Event> registered, Event round, List<Event> bids) {}
+
+    // what the manager picks up on startup
+    record Recovery(List<LiveAuction> auctions, List<Event> queued, int replayed, long millis) {
+        static final Recovery EMPTY = new Recovery(List.of(), List.of(), 0, 0);
+    }
+
+    private final Path dir;
+    private final String name;
+    private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+    private final ByteBuffer writeBuf = ByteBuffer.allocateDirect(256 * 1024);
+    private final CRC32 crc = new CRC32();
+    private Thread writer;
+    private volatile boolean running;
+
+    // writer thread's own copy of what is still live, so it can snapshot without touching the agent's state
+    private final Map<String, Live> live = new LinkedHashMap<>();
+    private final Deque<Event> queued = new ArrayDeque<>();
+    private Recovery recovery = Recovery.EMPTY;
+
+    private FileChannel out;
+    private int segment;
+    private int eventsSinceSnapshot;
+
+    private static final class Live {
+        final Event started;
+        final Map<String, Event> registered = new LinkedHashMap<>();
+        final List<Event> bids = new ArrayList<>();
+        Event round;
+
+        Live(Event started) {
+            this.started = started;
+        }
+    }
+
+    private AuctionJournal(Path dir, String name) {
+        this.dir = dir;
+        this.name = name;
+    }
+
+    // reads snapshot + journal tail, then starts the writer. Journaling off or the directory can't be used ->
+    // a journal that drops everything (the manager runs on without it)
+    static AuctionJournal open(String managerName) {
+        Path dir = Path.of(System.getProperty("auction.journal.dir", "data/journal"), managerName);
+        AuctionJournal journal = new AuctionJournal(dir, managerName);
+        if (!Boolean.parseBoolean(System.getProperty("auction.journal", "true"))) return journal;
+        try {
+            journal.start(Boolean.parseBoolean(System.getProperty("auction.journal.recover", "true")));
+        } catch (IOException | RuntimeException e) {
+            Log.warn(managerName, "Could not open auction journal in %s, running without it: %s", dir, e.getMessage());
+        }
+        return journal;
+    }
+
+    // state found on disk at startup (empty if there was none or recovery is off)
+    Recovery recovery() {
+        return recovery;
+    }
+
+    private void start(boolean recover) throws IOException {
+        Files.createDirectories(dir);
+        if (recover) {
+            long start = System.nanoTime();
+            segment = loadSnapshot();
+            int replayed = 0;
+            for (int seg : segments()) {
+                if (seg < segment) continue;
+                replayed += replay(seg);
+                segment = seg;
+            }
+            recovery = new Recovery(liveAuctions(), List.copyOf(queued), replayed, (System.nanoTime() - start) / 1_000_000);
+        } else {
+            List<Integer> segs = segments();
+            segment = segs.isEmpty() ? 0 : segs.get(segs.size() - 1);
+        }
+        // compact right away -> the next start only replays what happens from now on
+        snapshot();
+
+        running = true;
+        writer = new Thread(this::writeLoop, "journal-" + name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // === called on the manager's thread: enqueue only ===
+
+    void queued(String seller, AuctionSpec spec) {
+        add(QUEUED, null, seller, 0, 0, 0, spec);
+    }
+
+    void dequeued(String seller, AuctionSpec spec) {
+        add(DEQUEUED, null, seller, 0, 0, 0, spec);
+    }
+
+    void started(String auctionId, String seller, AuctionSpec spec) {
+        add(STARTED, auctionId, seller, 0, 0, 0, spec);
+    }
+
+    void registered(String auctionId, String bidder, double threshold) {
+        add(REGISTERED, auctionId, bidder, threshold, 0, 0, null);
+    }
+
+    void deregistered(String auctionId, String bidder) {
+        add(DEREGISTERED, auctionId, bidder, 0, 0, 0, null);
+    }
+
+    void bid(String auctionId, String bidder, double price, double limit) {
+        add(BID, auctionId, bidder, price, limit, 0, null);
+    }
+
+    void round(String auctionId, int round, double price) {
+        add(ROUND, auctionId, null, price, 0, round, null);
+    }
+
+    void closed(String auctionId, String winner, double price) {
+        add(CLOSED, auctionId, winner, price, 0, 0, null);
+    }
+
+    private void add(byte type, String auctionId, String agent, double price, double limit, int round, AuctionSpec spec) {
+        if (!running) return;
+        queue.add(new Event(type, System.currentTimeMillis(), auctionId, agent, price, limit, round, spec));
+    }
+
+    // writes + fsyncs what is queued, writes a final snapshot and stops the writer
+    void close() {
+        running = false;
+        if (writer == null) return;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // === writer thread ===
+
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Event first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (first != null) batch.add(first);
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+                queue.drainTo(batch);
+                if (batch.isEmpty()) continue;
+
+                long start = System.nanoTime();
+                for (Event e : batch) {
+                    write(out, e);
+                    apply(e);
+                }
+                drain(out);
+                out.force(false); // one fsync per batch
+                Metrics.journalFlush.recordSince(start);
+                Metrics.journalEvents.add(batch.size());
+                eventsSinceSnapshot += batch.size();
+                batch.clear();
+
+                if (eventsSinceSnapshot >= SNAPSHOT_EVERY) {
+                    snapshot();
+                }
+            }
+            if (eventsSinceSnapshot > 0) {
+                snapshot();
+            }
+            out.close();
+        } catch (IOException e) {
+            Log.error(name, "Journal writer stopped: %s", e.getMessage());
+        }
+    }
+
+    // into the write buffer, drained into ch whenever it is full
+    private void write(FileChannel ch, Event e) throws IOException {
+        byte[] id = utf8(e.auctionId());
+        byte[] agent = utf8(e.agent());
+        byte[] spec = e.spec() == null ? new byte[0] : AuctionCodec.encode(e.spec());
+        int bodyLen = 1 + 8 + size(id) + size(agent) + 8 + 8 + 4 + 4 + spec.length;
+        if (writeBuf.remaining() < 8 + bodyLen) {
+            drain(ch);
+        }
+        int bodyStart = writeBuf.position() + 8;
+        writeBuf.position(bodyStart);
+        writeBuf.put(e.type()).putLong(e.time());
+        putString(id);
+        putString(agent);
+        writeBuf.putDouble(e.price()).putDouble(e.limit()).putInt(e.round());
+        writeBuf.putInt(spec.length).put(spec);
+
+        crc.reset();
+        crc.update(writeBuf.duplicate().position(bodyStart).limit(bodyStart + bodyLen));
+        writeBuf.putInt(bodyStart - 8, bodyLen).putInt(bodyStart - 4, (int) crc.getValue());
+    }
+
+    private void drain(FileChannel ch) throws IOException {
+        writeBuf.flip();
+        while (writeBuf.hasRemaining()) {
+            ch.write(writeBuf);
+        }
+        writeBuf.clear();
+    }
+
+    // the mirror keeps only what a restart needs: queued requests and the auctions not closed yet
+    private void apply(Event e) {
+        switch (e.type()) {
+            case QUEUED -> queued.add(e);
+            case DEQUEUED -> {
+                for (Iterator<Event> it = queued.iterator(); it.hasNext(); ) {
+                    Event q = it.next();
+                    if (q.agent().equals(e.agent()) && q.spec().equals(e.spec())) {
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+            case STARTED -> {
+                // a queued request that got its slot (same seller + spec, only the id is new)
+                for (Iterator<Event> it = queued.iterator(); it.hasNext(); ) {
+                    Event q = it.next();
+                    if (q.agent().equals(e.agent()) && q.spec().withId(e.auctionId()).equals(e.spec())) {
+                        it.remove();
+                        break;
+                    }
+                }
+                live.put(e.auctionId(), new Live(e));
+            }
+            case REGISTERED -> {
+                Live l = live.get(e.auctionId());
+                if (l != null) l.registered.put(e.agent(), e);
+            }
+            case DEREGISTERED -> {
+                Live l = live.get(e.auctionId());
+                if (l != null) l.registered.remove(e.agent());
+            }
+            case BID -> {
+                Live l = live.get(e.auctionId());
+                if (l != null) l.bids.add(e);
+            }
+            case ROUND -> {
+                Live l = live.get(e.auctionId());
+                if (l != null) l.round = e;
+            }
+            case CLOSED -> live.remove(e.auctionId());
+        }
+    }
+
+    private List<LiveAuction> liveAuctions() {
+        List<LiveAuction> auctions = new ArrayList<>(live.size());
+        for (Live l : live.values()) {
+            auctions.add(new LiveAuction(l.started, List.copyOf(l.registered.values()), l.round, List.copyOf(l.bids)));
+        }
+        return auctions;
+    }
+
+    // rotate to a new journal file, write the snapshot next to it, then drop the files the snapshot covers
+    private void snapshot() throws IOException {
+        if (out != null) out.close();
+        segment++;
+        out = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        Path tmp = dir.resolve("snapshot.bin.tmp");
+        try (FileChannel snap = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeBuf.clear();
+            writeBuf.putInt(MAGIC).putInt(segment);
+            for (Event q : queued) {
+                write(snap, q);
+            }
+            for (Live l : live.values()) {
+                write(snap, l.started);
+                for (Event r : l.registered.values()) write(snap, r);
+                if (l.round != null) write(snap, l.round);
+                for (Event b : l.bids) write(snap, b);
+            }
+            drain(snap);
+            snap.force(true);
+        }
+        Files.move(tmp, dir.resolve("snapshot.bin"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (int seg : segments()) {
+            if (seg < segment) Files.deleteIfExists(segmentPath(seg));
+        }
+        eventsSinceSnapshot = 0;
+    }
+
+    // === loading ===
+
+    // returns the first journal file that is not part of the snapshot
+    private int loadSnapshot() throws IOException {
+        Path file = dir.resolve("snapshot.bin");
+        if (!Files.exists(file)) return 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < 8 || buf.getInt() != MAGIC) {
+                throw new IOException("Corrupt journal snapshot " + file);
+            }
+            int seg = buf.getInt();
+            while (buf.hasRemaining()) {
+                Event e = read(buf);
+                if (e == null) throw new IOException("Corrupt journal snapshot " + file);
+                apply(e);
+            }
+            return seg;
+        }
+    }
+
+    private int replay(int seg) throws IOException {
+        int events = 0;
+        try (FileChannel ch = FileChannel.open(segmentPath(seg), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            Event e;
+            while ((e = read(buf)) != null) { // null -> torn write at the tail
+                apply(e);
+                events++;
+            }
+        }
+        return events;
+    }
+
+    // null if the record is cut off or its checksum doesn't match
+    private Event read(ByteBuffer buf) {
+        if (buf.remaining() < 8) return null;
+        int len = buf.getInt();
+        int sum = buf.getInt();
+        if (len < 0 || buf.remaining() < len) return null;
+        crc.reset();
+        crc.update(buf.duplicate().limit(buf.position() + len));
+        if ((int) crc.getValue() != sum) return null;
+
+        byte type = buf.get();
+        long time = buf.getLong();
+        String auctionId = getString(buf);
+        String agent = getString(buf);
+        double price = buf.getDouble();
+        double limit = buf.getDouble();
+        int round = buf.getInt();
+        byte[] spec = new byte[buf.getInt()];
+        buf.get(spec);
+        return new Event(type, time, auctionId, agent, price, limit, round, spec.length == 0 ? null : AuctionCodec.decodeSpec(spec));
+    }
+
+    private List<Integer> segments() throws IOException {
+        List<Integer> segs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "journal-*.log")) {
+            for (Path p : files) {
+                String n = p.getFileName().toString();
+                segs.add(Integer.parseInt(n.substring(8, n.length() - 4)));
+            }
+        }
+        Collections.sort(segs);
+        return segs;
+    }
+
+    private Path segmentPath(int seg) {
+        return dir.resolve("journal-" + seg + ".log");
+    }
+
+    private static byte[] utf8(String s) {
+        return s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int size(byte[] s) {
+        return 2 + (s == null ? 0 : s.length);
+    }
+
+    private void putString(byte[] s) {
+        if (s == null) {
+            writeBuf.putShort((short) -1);
+            return;
+        }
+        writeBuf.putShort((short) s.length).put(s);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        short len = buf.getShort();
+        if (len < 0) return null;
+        byte[] s = new byte[len];
+        buf.get(s);
+        return new String(s, StandardCharsets.UTF_8);
+    }
+}
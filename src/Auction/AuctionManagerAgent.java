@@ -3,8 +3,11 @@ package Auction;
 import jade.core.AID;
 import jade.core.Agent;
 import jade.core.behaviours.CyclicBehaviour;
-import jade.core.behaviours.TickerBehaviour;
-import jade.core.behaviours.WakerBehaviour;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.domain.FIPAException;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
 
@@ -12,67 +15,175 @@ import java.util.*;
 
 public class AuctionManagerAgent extends Agent {
 
+    // round timings (ms): how long a round stays open for bids + pause before the next round opens
+    private static final long FIRST_ROUND_DELAY = 2000;
+    private static final long ENGLISH_ROUND_WINDOW = 1000;
+    private static final long ENGLISH_ROUND_GAP = 1000;
+    // DUTCH has no rounds: the clock ticks the price down until the first accept (see DutchClock for the settings)
+    private static final DutchClock DUTCH_CLOCK = DutchClock.fromSystemProperties();
+    // sealed bids are taken for this long after the first round delay (-Dauction.blind.window=<ms>),
+    // the window closes early once every registered bidder has bid
+    private static final long BLIND_BID_WINDOW = Long.getLong("auction.blind.window", 10000);
+    // requests waiting for a slot, per shard (-Dauction.queue.capacity=<n>); a full queue refuses the lowest ranked one
+    private static final int QUEUE_CAPACITY = Math.max(1, Integer.getInteger("auction.queue.capacity", 1000));
+    // resolution of the timing wheel behind every timer of the manager (-Dauction.wheel.tick=<ms>)
+    private static final long WHEEL_TICK = Long.getLong("auction.wheel.tick", 10);
+
+    // only the live auctions, finished ones are moved to the (bounded) history
     private final Map<String, AuctionInfo> auctions = new HashMap<>();
-    private final Queue<ACLMessage> pendingAuctions = new LinkedList<>();
-    private final Map<String, List<ACLMessage>> pendingBlindBids = new HashMap<>();
+    private AuctionHistory history;
+    private AuctionJournal journal;
+    // best first, see PendingAuction.ORDER
+    private final NavigableSet<PendingAuction> pendingAuctions = new TreeSet<>(PendingAuction.ORDER);
+    private long pendingSeq;
+    // seller name -> how its auctions ended, ranks its queued requests
+    private final Map<String, SellerRecord> sellers = new HashMap<>();
+    private double avgAuctionMillis = FIRST_ROUND_DELAY + BLIND_BID_WINDOW; // moving average, for the retry hint
+    // every running auction has its own timer (next round opening or current round deadline)
+    // -> a slow auction never holds up the others. All timers live in one wheel, driven by one behaviour
+    private final TimingWheel wheel = new TimingWheel(WHEEL_TICK);
+    private CyclicBehaviour clock;
+    private long clockWakeAt = Long.MAX_VALUE; // nanoTime the clock sleeps until (MAX = until a message)
+    private final Map<String, TimingWheel.Timer> roundTimers = new HashMap<>();
+    private final Map<String, TimingWheel.Timer> endTimers = new HashMap<>(); // auctions with an end time
+    private int scheduledAuctions = 0; // requests waiting for their start time
+
+    private int shard;                     // which AuctionRouter shard this manager is (from its name)
+    private int maxConcurrentAuctions = 4; // can be overridden by the first agent argument, per shard
+    private int activeAuctions = 0;
 
     // A bit messy rn, will refactor
     protected void setup() {
-        System.out.println(getLocalName() + " ready.");
+        Object[] args = getArguments();
+        if (args != null && args.length > 0 && args[0] != null) {
+            maxConcurrentAuctions = Math.max(1, Integer.parseInt(args[0].toString()));
+        }
+        // second argument -> how many finished auctions to remember
+        int historySize = 1000;
+        if (args != null && args.length > 1 && args[1] != null) {
+            historySize = Math.max(1, Integer.parseInt(args[1].toString()));
+        }
+        history = new AuctionHistory(historySize);
+        shard = AuctionRouter.shardOf(getLocalName());
+        journal = AuctionJournal.open(getLocalName());
+        registerShard();
+        Metrics.start();
+        Metrics.watchInbox(this);
+        Log.info(getLocalName(), "ready. (shard %d/%d, max concurrent auctions: %d)",
+                shard, AuctionRouter.shards(), maxConcurrentAuctions);
 
-        // handle new auction requests and bidder registrations
+        // fires whatever is due, then sleeps until the next timer is due (or until the next message if none is
+        // pending) -> an auction scheduled hours ahead doesn't wake the manager every tick
+        clock = new CyclicBehaviour(this) {
+            public void action() {
+                wheel.advance();
+                long delay = wheel.nextDelayMillis();
+                if (delay < 0) {
+                    clockWakeAt = Long.MAX_VALUE;
+                    block();
+                } else {
+                    delay = Math.max(1, delay);
+                    clockWakeAt = System.nanoTime() + delay * 1_000_000;
+                    block(delay);
+                }
+            }
+        };
+        addBehaviour(clock);
+        recover(journal.recovery());
+
+        // handle new auction requests, bidder registrations and bids
+        // everything goes through here, rounds never wait on the inbox themselves
         addBehaviour(new CyclicBehaviour() {
             public void action() {
                 ACLMessage msg = receive();
                 if (msg != null) {
                     switch (msg.getPerformative()) {
                         case ACLMessage.REQUEST: // NEW_AUCTION
-                            if (msg.getContent().startsWith("NEW_AUCTION")) {
-                                if (isAuctionActive()) {
-                                    pendingAuctions.add(msg);
-                                    System.out.println("~~ Auction queued: " + msg.getContent() + " ~~");
+                            AuctionSpec spec = decodeNewAuction(msg);
+                            if (spec != null) {
+                                if (spec.startAt() > System.currentTimeMillis()) {
+                                    scheduleStart(msg.getSender(), spec, false);
                                 } else {
-                                    startAuctionFromMessage(msg);
+                                    admit(msg.getSender(), spec, false);
                                 }
                             }
                             break;
 
                         case ACLMessage.SUBSCRIBE: // Bidder registers
                             if ("REGISTER".equals(msg.getOntology())) {
-                                String auctionId = msg.getContent();
+                                String auctionId = auctionIdOf(msg);
                                 AuctionInfo ai = auctions.get(auctionId);
                                 if (ai != null && ai.active) {
                                     ai.bidders.add(msg.getSender());
+                                    // journaled once: with the sealed threshold / proxy maximum if it carries one
+                                    boolean sealed = false;
+                                    if (ai.type == AuctionType.DUTCH && msg.hasByteSequenceContent()) {
+                                        sealed = registerThreshold(ai, msg);
+                                    } else if (ai.type == AuctionType.ENGLISH && msg.hasByteSequenceContent()) {
+                                        sealed = registerProxy(ai, msg);
+                                    }
+                                    if (!sealed) {
+                                        journal.registered(ai.id, msg.getSender().getName(), 0);
+                                    }
+                                    if (ai.type == AuctionType.BLIND) {
+                                        // the user's GUI joins whatever it shows -> not waited for until it bids
+                                        if (isUser(msg.getSender())) {
+                                            ai.sealedBook.watch(msg.getSender());
+                                        } else {
+                                            ai.sealedBook.register(msg.getSender());
+                                        }
+                                        // window already open -> the late bidder gets its CFP right away
+                                        if (ai.roundOpen) {
+                                            sendCfp(ai, List.of(msg.getSender()));
+                                        }
+                                    }
                                     String buyerName = msg.getSender().getLocalName().split("-bidder-")[0];
                                     sendReputationUpdate(buyerName, "joined");
+                                } else {
+                                    // too late (or unknown id) -> tell the bidder so it doesn't wait for CFPs forever
+                                    ACLMessage refuse = msg.createReply();
+                                    refuse.setPerformative(ACLMessage.REFUSE);
+                                    refuse.setConversationId(auctionId);
+                                    refuse.setContent(history.contains(auctionId) ? "CLOSED" : "UNKNOWN");
+                                    send(refuse);
                                 }
                             }
                             break;
 
                         case ACLMessage.CANCEL: // this is to remove the bidders that are no longer bidding on something
-                            if (msg.getOntology().equals("DEREGISTER")) {
-                                String auctionId = msg.getContent();
+                            if ("DEREGISTER".equals(msg.getOntology())) {
+                                String auctionId = auctionIdOf(msg);
                                 AuctionInfo ai = auctions.get(auctionId);
                                 if (ai != null) {
                                     ai.bidders.remove(msg.getSender());
-                                    System.out.printf("AUCTION QUIT: %s left auction %s (remaining: %d)%n",
-                                            msg.getSender().getLocalName(),
-                                            auctionId,
-                                            ai.bidders.size()
-                                    );
+                                    journal.deregistered(ai.id, msg.getSender().getName());
+                                    if (ai.type == AuctionType.BLIND) {
+                                        ai.sealedBook.withdraw(msg.getSender());
+                                        closeIfAllSealed(ai);
+                                    } else if (ai.type == AuctionType.DUTCH) {
+                                        ai.dutchThresholds.remove(msg.getSender());
+                                    } else {
+                                        ai.proxies.remove(msg.getSender());
+                                    }
+                                    if (Log.debugEnabled()) {
+                                        Log.debug(getLocalName(), "AUCTION QUIT: %s left auction %s (remaining: %d)",
+                                                msg.getSender().getLocalName(), auctionId, ai.bidders.size());
+                                    }
                                     String buyerName = msg.getSender().getLocalName().split("-bidder-")[0];
                                     sendReputationUpdate(buyerName, "earlyExit");
                                 }
                             }
                             break;
                         case ACLMessage.PROPOSE:
-                            for (String auctionId : auctions.keySet()) {
-                                AuctionInfo ai = auctions.get(auctionId);
-                                if (ai.type == AuctionType.BLIND && ai.active && ai.bidders.contains(msg.getSender())) {
-                                    pendingBlindBids.computeIfAbsent(auctionId, _ -> new ArrayList<>()).add(msg);
-                                    //debug - to see if stored right
-//                                    System.out.printf("Stored blind bid for %s: %s -> %s%n", auctionId, msg.getSender().getLocalName(), msg.getContent());
-                                }
+                            AuctionInfo target = routeBid(msg);
+                            if (target == null) {
+                                Metrics.bidsRejected.increment();
+                                break;
+                            }
+                            if ("USER_BID".equals(msg.getOntology())) {
+                                handleUserBid(target, msg);
+                            } else {
+                                handleProposal(target, msg);
                             }
                             break;
                     }
@@ -81,265 +192,798 @@ public class AuctionManagerAgent extends Agent {
                 }
             }
         });
+    }
 
-        addBehaviour(new CyclicBehaviour(this) {
-            public void action() {
-                MessageTemplate mt = MessageTemplate.and(
-                        MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
-                        MessageTemplate.MatchOntology("USER_BID")
-                );
-                ACLMessage m = receive(mt);
-                if (m != null) {
-                    String aucId = m.getConversationId();
-                    AuctionInfo ai = auctions.get(aucId);
-                    if (ai != null && ai.active) {
-                        // If it’s a blind auction, stash it instead of updating currentPrice
-                        if (ai.type == AuctionType.BLIND) {
-                            pendingBlindBids
-                                    .computeIfAbsent(aucId, _ -> new ArrayList<>())
-                                    .add(m);
-                            System.out.printf("[AuctionManager] Stored sealed user bid: %s%n", m.getContent());
-                        } else {
-                            // Existing immediate update for English/Dutch
-                            double bid = Double.parseDouble(m.getContent());
-                            if (bid > ai.currentPrice) {
-                                ai.currentPrice = bid;
-                                ai.highestBidder = m.getSender();
-                                ai.finalWinner   = m.getSender();
-//                                System.out.printf("[AuctionManager] Manual bid: %.2f (prev: %.2f)%n",
-//                                        bid, prev);
-                            }
-                        }
-                    }
-                } else {
-                    block();
+    // DF entry of the shard: service type auction-manager, with its index and the shard count
+    private void registerShard() {
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(AuctionRouter.SERVICE_TYPE);
+        sd.setName("shard-" + shard);
+        sd.addProperties(new Property("shard", shard));
+        sd.addProperties(new Property("shards", AuctionRouter.shards()));
+        dfd.addServices(sd);
+        try {
+            DFService.register(this, dfd);
+        } catch (FIPAException e) {
+            Log.warn(getLocalName(), "DF registration failed: %s", e.getMessage());
+        }
+    }
+
+    @Override
+    protected void takeDown() {
+        try {
+            DFService.deregister(this);
+        } catch (FIPAException ignored) {}
+        journal.close();
+    }
+
+    // NEW_AUCTION comes encoded from our own agents, the old text format is still accepted (parsed once)
+    private AuctionSpec decodeNewAuction(ACLMessage msg) {
+        try {
+            if ("NEW_AUCTION".equals(msg.getOntology()) && msg.hasByteSequenceContent()) {
+                return AuctionCodec.decodeSpec(msg.getByteSequenceContent());
+            }
+            if (msg.getContent() != null && msg.getContent().startsWith("NEW_AUCTION")) {
+                AuctionSpec spec = AuctionSpec.parse(msg.getContent());
+                AuctionCodec.encode(spec); // fields too long for the binary format -> refused here, not in the journal
+                return spec;
+            }
+        } catch (IllegalArgumentException e) {
+            Log.warn(getLocalName(), "Invalid auction request from %s: %s", msg.getSender().getLocalName(), e.getMessage());
+        }
+        return null;
+    }
+
+    private static boolean isUser(AID aid) {
+        return "user-agent".equals(aid.getLocalName());
+    }
+
+    // (de)registrations name the auction in the conversation id, older senders only in the content
+    private static String auctionIdOf(ACLMessage msg) {
+        return msg.getConversationId() != null ? msg.getConversationId() : msg.getContent();
+    }
+
+    private Bid decodeBid(ACLMessage msg) {
+        try {
+            return AuctionCodec.decodeBid(msg.getByteSequenceContent());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // every bid carries its auction's conversation id -> auction lookup + registered-bidder check, both O(1),
+    // before the content is even decoded. Bids for unknown/closed auctions or from unregistered senders are dropped
+    private AuctionInfo routeBid(ACLMessage msg) {
+        String auctionId = msg.getConversationId();
+        if (auctionId == null) return null;
+        AuctionInfo ai = auctions.get(auctionId);
+        if (ai == null || !ai.active || !ai.bidders.contains(msg.getSender())) return null;
+        return ai;
+    }
+
+    // bot proposals (and the GUI's Dutch accept) -> stored in the round of the auction they belong to
+    private void handleProposal(AuctionInfo ai, ACLMessage msg) {
+        Bid bid = decodeBid(msg);
+        if (bid == null || !ai.id.equals(bid.auctionId())) {
+            Metrics.bidsRejected.increment();
+            return;
+        }
+
+        // sealed bids are taken the whole time the auction runs, not only in an open round
+        if (ai.type == AuctionType.BLIND) {
+            submitSealed(ai, msg.getSender(), bid.price(), false);
+            return;
+        }
+        if (!ai.roundOpen) {
+            Metrics.bidsRejected.increment(); // late bids for an already closed round are dropped
+            return;
+        }
+
+        switch (ai.type) {
+            case ENGLISH -> {
+                if (!ai.offerEnglish(msg.getSender(), bid.price())) {
+                    Metrics.bidsRejected.increment(); // doesn't beat the standing bid
+                    return;
                 }
+                accepted(ai, msg.getSender(), bid.price(), 0);
+                resolveProxies(ai);
             }
-        });
+            case DUTCH -> acceptDutch(ai, msg.getSender(), bid);
+        }
+    }
 
-        // auction logic runs every 2 seconds
-        addBehaviour(new TickerBehaviour(this, 2000) {
-            protected void onTick() {
-                for (AuctionInfo ai : auctions.values()) {
-                    if (!ai.active) continue;
-                    ai.totalRounds++;
-
-                    // ✅ Check for zero remaining bidders
-                    if (ai.bidders.isEmpty()) {
-                        ai.active = false;
-                        System.out.printf("STOP AUCTION: Auction %s is CLOSED — no more bidders.%n", ai.id);
-
-                        ACLMessage endMsg = new ACLMessage(ACLMessage.INFORM);
-                        endMsg.addReceiver(ai.seller);
-                        endMsg.setContent("Auction " + ai.id + " closed — no more active bidders.");
-                        send(endMsg);
-
-                        // Start next pending auction if any
-                        if (!pendingAuctions.isEmpty()) {
-                            ACLMessage next = pendingAuctions.poll();
-                            startAuctionFromMessage(next);
-                        }
-
-                        continue; // Skip rest of this auction loop
-                    }
+    // first valid accept closes the clock right away
+    private void acceptDutch(AuctionInfo ai, AID sender, Bid bid) {
+        if (offerDutch(ai, sender, bid)) {
+            closeDutchClock(ai);
+        }
+    }
 
-                    // Auction logic for ENGLISH and DUTCH auctions
-                    // BLIND also implemented but in startAuctionFromMessage, will be integrated here later TBD
-                    if (ai.type == AuctionType.ENGLISH) {
-                        List<AID> biddersSnapshot = new ArrayList<>(ai.bidders);
-                        for (AID bidder : biddersSnapshot) {
-//                        System.out.println("-------DEBUG-- " + ai.bidders.size() + "   " + ai.highestBidder + "  " + bidder);
-                            // edge-case - solo bid
-                            if (ai.bidders.size() == 1 && bidder.equals(ai.highestBidder)){
-                                continue;
-                            }
-                            ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
-                            cfp.addReceiver(bidder);
-                            cfp.setContent(String.valueOf(ai.currentPrice));
-                            send(cfp);
-                        }
-
-                        long end = System.currentTimeMillis() + 1000;
-                        // since we treat user bid a bit more specially, ignore their bids
-                        MessageTemplate mt = MessageTemplate.and(
-                                MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
-                                MessageTemplate.not(MessageTemplate.MatchOntology("USER_BID"))
-                        );
-                        boolean gotNewBid = false;
-
-                        while (System.currentTimeMillis() < end) {
-                            ACLMessage prop = receive(mt);
-                            if (prop != null) {
-                                double offered = Double.parseDouble(prop.getContent());
-                                if (offered > ai.currentPrice) {
-                                    ai.currentPrice = offered;
-                                    ai.highestBidder = prop.getSender();
-                                    ai.finalWinner = prop.getSender(); // track final winner
-                                    gotNewBid = true;
-                                }
-                            }
-                        }
-
-
-                        if (!gotNewBid || ai.bidders.size() == 1 || ai.totalRounds >= 5) {
-                            ai.roundsWithoutBid++;
-                            if (ai.roundsWithoutBid >= 1) { // end auction after 1 empty round -> catches 1-bidder edge case
-//                            System.out.println("CURRENT BIDDERS= " + ai.bidders);
-                                ai.active = false;
-
-                                String rawWinner = ai.finalWinner != null ? ai.finalWinner.getLocalName() : "None";
-                                String shortWinner = rawWinner.contains("-") ? rawWinner.split("-")[0]  : rawWinner;
-
-                                String result = String.format(
-                                        "Auction %s CLOSED. Winner: %s | Final Price: %.2f | Book Info: %s",
-                                        ai.id,
-                                        shortWinner,
-                                        ai.currentPrice,
-                                        ai.metadata
-                                );
-                                if (ai.totalRounds >= 5){
-                                    result = result + "\n--Closed due to 5 round limit.";
-                                }
-                                System.out.println(result);
-
-                                // notify seller, winner, gui
-                                ACLMessage informSeller = new ACLMessage(ACLMessage.INFORM);
-                                informSeller.addReceiver(ai.seller);
-                                informSeller.setContent(result);
-                                send(informSeller);
-
-                                if (ai.finalWinner != null) {
-                                    String bidderName = ai.finalWinner.getLocalName(); // e.g., buyer2-bidder-abc
-                                    String buyerName = bidderName.split("-bidder-")[0]; // e.g., buyer2
-                                    sendReputationUpdate(buyerName, "won");
-
-                                    ACLMessage winnerMsg = new ACLMessage(ACLMessage.INFORM);
-                                    winnerMsg.addReceiver(new AID(buyerName, AID.ISLOCALNAME));
-                                    winnerMsg.setOntology("AUCTION_RESULT");
-                                    winnerMsg.setContent("You won auction " + ai.id + " at price " + ai.currentPrice);
-                                    send(winnerMsg);
-
-                                    // notify user only
-                                    ACLMessage guiMsg = new ACLMessage(ACLMessage.INFORM);
-                                    guiMsg.addReceiver(new AID("user-agent", AID.ISLOCALNAME));
-                                    guiMsg.setOntology("AUCTION_RESULT");
-                                    guiMsg.setContent("Another buyer won this auction.");
-                                    send(guiMsg);
-                                }
+    // REGISTER of a DUTCH bidder can carry its acceptance threshold (a Bid) -> no CFPs for it, the manager accepts
+    // for it once the clock reaches that price (straight away if it already has). false -> no usable threshold,
+    // a plain registration
+    private boolean registerThreshold(AuctionInfo ai, ACLMessage msg) {
+        Bid threshold = decodeBid(msg);
+        if (threshold == null || !ai.id.equals(threshold.auctionId()) || !(threshold.limit() > 0)) {
+            Metrics.bidsRejected.increment();
+            return false;
+        }
+        ai.dutchThresholds.put(msg.getSender(), threshold.limit());
+        journal.registered(ai.id, msg.getSender().getName(), threshold.limit());
+        if (ai.roundOpen) {
+            resolveThresholds(ai);
+        }
+        return true;
+    }
+
+    // the best sealed threshold that takes the called price accepts it, without a message from the bidder
+    private boolean resolveThresholds(AuctionInfo ai) {
+        DutchThresholds.Entry taker = ai.dutchThresholds.taker(ai.currentPrice);
+        if (taker == null) return false;
+        accepted(ai, taker.bidder(), ai.currentPrice, taker.limit());
+        ai.offerDutch(taker.bidder(), ai.currentPrice, taker.limit());
+        closeDutchClock(ai);
+        return true;
+    }
 
-                                ACLMessage informGui = new ACLMessage(ACLMessage.INFORM);
-                                informGui.addReceiver(new AID("auction-gui", AID.ISLOCALNAME));
-                                informGui.setOntology("AUCTION_RESULT");
-                                informGui.setContent(result);
-                                send(informGui);
+    // REGISTER of an ENGLISH bidder can carry its maximum (a Bid) -> proxy bidding: no CFPs for it, the manager
+    // raises for it right away whenever it is topped, until the maximum can't follow. false -> no usable maximum,
+    // a plain registration (the registration is journaled before the bids / OUTBID it may cause)
+    private boolean registerProxy(AuctionInfo ai, ACLMessage msg) {
+        Bid max = decodeBid(msg);
+        if (max == null || !ai.id.equals(max.auctionId()) || !(max.limit() > 0)) {
+            Metrics.bidsRejected.increment();
+            return false;
+        }
+        ai.proxies.put(msg.getSender(), max.limit());
+        journal.registered(ai.id, msg.getSender().getName(), max.limit());
+        resolveProxies(ai);
+        return true;
+    }
 
-                                if (!pendingAuctions.isEmpty()) {
-                                    ACLMessage next = pendingAuctions.poll();
-                                    startAuctionFromMessage(next);
-                                }
-                            }
-                        } else {
-                            ai.roundsWithoutBid = 0;
-                            ai.highestBidder = null;
-                        }
-                    } else if (ai.type == AuctionType.DUTCH) {
-                        // lower price by 5% every auction cycle
-                        ai.currentPrice -= ai.currentPrice * 0.05;
-                        if (ai.currentPrice < 1) {
-                            ai.currentPrice = 1;
-                        }
-                        System.out.printf("Dutch current price: [%.6f]%n", ai.currentPrice);
-
-                        // broadcast a CFP
-                        ACLMessage dutchMsg = new ACLMessage(ACLMessage.CFP);
-                        for (AID bidder : ai.bidders) {
-                            dutchMsg.addReceiver(bidder);
-                        }
-                        dutchMsg.setContent(String.valueOf(ai.currentPrice));
-                        send(dutchMsg);
-
-                        // collect PROPOSES from potential bidders, 2s buffer
-                        MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.PROPOSE);
-                        long deadline = System.currentTimeMillis() + 2000;
-                        List<ACLMessage> proposals = new ArrayList<>();
-                        while (System.currentTimeMillis() < deadline) {
-                            ACLMessage p = receive(mt);
-                            if (p != null) {
-                                proposals.add(p);
-                            } else {
-                                block(deadline - System.currentTimeMillis());
-                            }
-                        }
-
-                        // if anyone bid, pick the one with highest threshold
-                        if (!proposals.isEmpty()) {
-                            AID winner = null;
-                            double bestThreshold = -1;
-                            for (ACLMessage p : proposals) {
-                                String content = p.getContent().trim();
-                                double threshold;
-                                if (content.contains(";")) {
-                                    // BOT sent "price;threshold"
-                                    threshold = Double.parseDouble(content.split(";")[1]);
-                                } else {
-                                    // GUI sent just the number → use that as threshold
-                                    threshold = Double.parseDouble(content);
-                                }
-                                if (threshold > bestThreshold) {
-                                    bestThreshold   = threshold;
-                                    winner          = p.getSender();
-                                }
-                            }
+    // the proxies fight it out at once instead of round by round: the best maximum leads at one increment over the
+    // next best one (or over a standing bid from outside the proxies), capped by itself. Every proxy that can't top
+    // the new price is out, its bidder gets the one message it sees during the auction (OUTBID)
+    private void resolveProxies(AuctionInfo ai) {
+        ProxyBids.Entry top = ai.proxies.first();
+        if (top == null) return;
+        boolean leads = top.bidder().equals(ai.finalWinner);
+        double needed = ai.finalWinner == null || leads
+                ? ai.currentPrice
+                : ai.currentPrice + ProxyBids.increment(ai.currentPrice);
+        ProxyBids.Entry second = ai.proxies.second();
+        if (second != null) {
+            needed = Math.max(needed, second.max() + ProxyBids.increment(second.max()));
+        }
+        double price = Math.min(top.max(), needed);
+        // an outside leader has to be topped, the opening price only reached
+        boolean takes = ai.finalWinner == null ? price >= ai.currentPrice : price > ai.currentPrice;
+        if (takes && !(leads && price == ai.currentPrice)) {
+            accepted(ai, top.bidder(), price, top.max());
+            ai.leadEnglish(top.bidder(), price);
+        }
+        for (ProxyBids.Entry out : ai.proxies.outbid(ai.finalWinner, ai.currentPrice)) {
+            sendOutbid(ai, out);
+        }
+    }
 
-                            // auction end logic
-                            ai.finalWinner = winner;
-                            ai.active = false;
-                            String winnerName = winner.getLocalName().split("-")[0];
-                            String result = String.format(
-                                    "Dutch auction %s CLOSED. Winner: %s | Final Price: %.2f | Book Info: %s",
-                                    ai.id, winnerName, ai.currentPrice, ai.metadata
-                            );
-                            System.out.println(result);
-
-                            // notify each party: seller -> winner -> user gui
-                            sendReputationUpdate(winnerName, "won");
-                            ACLMessage informSeller = new ACLMessage(ACLMessage.INFORM);
-                            informSeller.addReceiver(ai.seller);
-                            informSeller.setContent(result);
-                            send(informSeller);
-
-                            ACLMessage informWinner = new ACLMessage(ACLMessage.INFORM);
-                            informWinner.setOntology("AUCTION_RESULT");
-                            informWinner.addReceiver(new AID(winnerName, AID.ISLOCALNAME));
-                            informWinner.setContent("You won Dutch auction " + ai.id + " at price " + ai.currentPrice);
-                            send(informWinner);
-
-                            ACLMessage guiMsg = new ACLMessage(ACLMessage.INFORM);
-                            guiMsg.addReceiver(new AID("user-agent", AID.ISLOCALNAME));
-                            guiMsg.setOntology("AUCTION_RESULT");
-                            guiMsg.setContent(result);
-                            send(guiMsg);
-
-                            // bidder cleanup logic + next auction
-                            for (AID b : ai.bidders) {
-                                ACLMessage canc = new ACLMessage(ACLMessage.CANCEL);
-                                canc.addReceiver(b);
-                                send(canc);
-                            }
+    // the proxy's maximum is topped: it leaves the auction (its budget reservation is free again on its side)
+    private void sendOutbid(AuctionInfo ai, ProxyBids.Entry out) {
+        ai.bidders.remove(out.bidder());
+        journal.deregistered(ai.id, out.bidder().getName());
+        ACLMessage outbid = new ACLMessage(ACLMessage.REJECT_PROPOSAL);
+        outbid.addReceiver(out.bidder());
+        outbid.setOntology("OUTBID");
+        outbid.setConversationId(ai.id);
+        outbid.setByteSequenceContent(AuctionCodec.encode(new Bid(ai.id, ai.currentPrice, out.max())));
+        send(outbid);
+        Metrics.outbidSent.increment();
+        if (Log.debugEnabled()) {
+            Log.debug(getLocalName(), "Proxy of %s outbid at %.2f (max %.2f) in auction %s",
+                    out.bidder().getLocalName(), ai.currentPrice, out.max(), ai.id);
+        }
+    }
 
-                            if (!pendingAuctions.isEmpty()) {
-                                ACLMessage next = pendingAuctions.poll();
-                                startAuctionFromMessage(next);
-                            }
-                        }
-                    }
+    // accepts already waiting in the inbox for the same auction are taken in as well and ranked by offerDutch
+    // -> the winner doesn't depend on inbox order
+    private void closeDutchClock(AuctionInfo ai) {
+        MessageTemplate sameAuction = MessageTemplate.and(
+                MessageTemplate.MatchPerformative(ACLMessage.PROPOSE),
+                MessageTemplate.MatchConversationId(ai.id));
+        ACLMessage queued;
+        while ((queued = receive(sameAuction)) != null) {
+            Bid other = routeBid(queued) == ai ? decodeBid(queued) : null;
+            if (other == null || !ai.id.equals(other.auctionId())) {
+                Metrics.bidsRejected.increment();
+                continue;
+            }
+            offerDutch(ai, queued.getSender(), other);
+        }
+
+        cancelRoundTimer(ai);
+        closeRound(ai);
+    }
+
+    // only a price the clock has already called can be accepted (the GUI sends just the price -> that is its threshold)
+    private boolean offerDutch(AuctionInfo ai, AID sender, Bid bid) {
+        if (bid.price() < ai.currentPrice - 1e-9 || bid.price() > ai.spec.startingPrice() + 1e-9) {
+            Metrics.bidsRejected.increment();
+            return false;
+        }
+        accepted(ai, sender, bid.price(), bid.limit());
+        ai.offerDutch(sender, bid.price(), bid.limit());
+        return true;
+    }
+
+    // into the bid book (only the amount is kept, not the message); the last missing bid closes the window
+    // the starting price is the reserve, a bid under it doesn't count
+    // a refused bid is answered (REJECT_PROPOSAL, BID_REJECTED) and its bidder no longer waited for, so the window
+    // can still close early. A bidding agent ends its session on it -> without an earlier bid standing it is out
+    // of the auction; the user's GUI stays registered and may come back with a valid bid
+    private void submitSealed(AuctionInfo ai, AID bidder, double amount, boolean staysRegistered) {
+        if (amount < ai.spec.startingPrice() || !ai.sealedBook.submit(bidder, amount)) {
+            Metrics.bidsRejected.increment();
+            ACLMessage reject = new ACLMessage(ACLMessage.REJECT_PROPOSAL);
+            reject.addReceiver(bidder);
+            reject.setOntology("BID_REJECTED");
+            reject.setConversationId(ai.id);
+            reject.setByteSequenceContent(AuctionCodec.encode(new Bid(ai.id, amount, ai.spec.startingPrice())));
+            send(reject);
+            ai.sealedBook.withdraw(bidder); // no-op if an earlier bid stands, that one stays binding
+            if (!staysRegistered && !ai.sealedBook.hasBid(bidder) && ai.bidders.remove(bidder)) {
+                journal.deregistered(ai.id, bidder.getName());
+            }
+            closeIfAllSealed(ai);
+            return;
+        }
+        accepted(ai, bidder, amount, 0);
+        closeIfAllSealed(ai);
+    }
+
+    // every accepted bid is counted and journaled (limit = the bidder's sealed limit where it sent one, else 0)
+    private void accepted(AuctionInfo ai, AID bidder, double price, double limit) {
+        Metrics.bidsAccepted.increment();
+        journal.bid(ai.id, bidder.getName(), price, limit);
+    }
+
+    private void closeIfAllSealed(AuctionInfo ai) {
+        if (!ai.roundOpen || !ai.sealedBook.allSubmitted()) return;
+        cancelRoundTimer(ai);
+        closeRound(ai);
+    }
+
+    private void handleUserBid(AuctionInfo ai, ACLMessage m) {
+        Bid bid = decodeBid(m);
+        if (bid == null || !ai.id.equals(bid.auctionId())) {
+            Metrics.bidsRejected.increment();
+            return;
+        }
+        // If it’s a blind auction, it goes into the bid book like any other sealed bid
+        if (ai.type == AuctionType.BLIND) {
+            if (Log.debugEnabled()) {
+                Log.debug(getLocalName(), "Sealed user bid: %.2f", bid.price());
+            }
+            submitSealed(ai, m.getSender(), bid.price(), true); // the user may still bid again
+        } else {
+            // Existing immediate update for English/Dutch, only a bid over the current price counts
+            if (!(bid.price() > ai.currentPrice)) {
+                Metrics.bidsRejected.increment();
+                return;
+            }
+            accepted(ai, m.getSender(), bid.price(), 0);
+            ai.bids.add(m.getSender(), bid.price());
+            ai.currentPrice = bid.price();
+            ai.highestBidder = m.getSender();
+            ai.finalWinner   = m.getSender();
+//                System.out.printf("[AuctionManager] Manual bid: %.2f (prev: %.2f)%n",
+//                        bid, prev);
+            if (ai.type == AuctionType.ENGLISH) {
+                resolveProxies(ai);
+            }
+        }
+    }
+
+    // the single pending round timer of an auction: opens the next round, closes the open one at its deadline,
+    // or moves the Dutch clock one tick
+    private void schedule(AuctionInfo ai, long delay) {
+        cancelRoundTimer(ai);
+        roundTimers.put(ai.id, at(delay, () -> onRoundTimer(ai)));
+    }
+
+    private void onRoundTimer(AuctionInfo ai) {
+        roundTimers.remove(ai.id);
+        if (!ai.active) return;
+
+        if (ai.type == AuctionType.DUTCH && ai.roundOpen) {
+            tickDutch(ai);
+        } else if (ai.roundOpen) {
+            closeRound(ai);
+        } else {
+            openRound(ai);
+        }
+    }
+
+    private void cancelRoundTimer(AuctionInfo ai) {
+        TimingWheel.Timer timer = roundTimers.remove(ai.id);
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    // into the wheel; a clock sleeping past the new timer's deadline is woken up to sleep shorter
+    private TimingWheel.Timer at(long delay, Runnable task) {
+        TimingWheel.Timer timer = wheel.schedule(delay, task);
+        if (clock != null && System.nanoTime() + Math.max(0, delay) * 1_000_000 < clockWakeAt) {
+            clockWakeAt = 0; // until the clock has run and planned its next sleep
+            clock.restart();
+        }
+        return timer;
+    }
+
+    // an auction with an end time closes then whatever state it is in: the English leader wins, an open Dutch clock
+    // ends unsold, the sealed bids in so far are evaluated
+    private void scheduleEnd(AuctionInfo ai) {
+        if (ai.spec.endAt() <= 0) return;
+        endTimers.put(ai.id, at(ai.spec.endAt() - System.currentTimeMillis(), () -> endAuction(ai)));
+    }
+
+    private void endAuction(AuctionInfo ai) {
+        endTimers.remove(ai.id);
+        if (!ai.active) return;
+        cancelRoundTimer(ai);
+        Log.info(getLocalName(), "Auction %s reached its end time", ai.id);
+        if (ai.roundOpen) {
+            ai.roundOpen = false;
+            Metrics.roundDuration(ai.type).recordSince(ai.roundOpenedAt);
+        }
+        switch (ai.type) {
+            case ENGLISH -> closeEnglishAuction(ai);
+            case DUTCH -> closeDutchRound(ai);
+            case BLIND -> closeBlindAuction(ai);
+        }
+    }
+
+    private void openRound(AuctionInfo ai) {
+        ai.totalRounds++;
+
+        // ✅ Check for zero remaining bidders
+        if (ai.type != AuctionType.BLIND && ai.bidders.isEmpty()) {
+            stopWithoutBidders(ai);
+            return;
+        }
+
+        ai.roundOpen = true;
+        ai.roundOpenedAt = System.nanoTime();
+        journal.round(ai.id, ai.totalRounds, ai.currentPrice);
+        switch (ai.type) {
+            case ENGLISH -> {
+                ai.gotNewBid = false;
+                // proxies were resolved as they came in -> with nobody else to call out, the auction is decided
+                Collection<AID> receivers = roundReceivers(ai);
+                if (receivers.isEmpty()) {
+                    closeRound(ai);
+                    return;
                 }
+                // one CFP for everyone with the round number; the current leader skips it on its side
+                // (its own bid is the called price). edge-case - solo bidder that already leads: nothing to call
+                if (ai.bidders.size() != 1 || !ai.bidders.contains(ai.highestBidder)) {
+                    sendCfp(ai, receivers);
+                }
+                schedule(ai, ENGLISH_ROUND_WINDOW);
+            }
+            case DUTCH -> {
+                // clock starts at the starting price, stays open until the first accept or the floor
+                ai.clockTicks = 0;
+                ai.nextTickAt = ai.roundOpenedAt;
+                if (resolveThresholds(ai)) return;
+                sendCfp(ai, clockReceivers(ai));
+                scheduleTick(ai);
+            }
+            case BLIND -> {
+                //brodcast the CFP, the COMPUTER blind bids come in during the window
+                // (bids that came in before it - e.g. the user's - are already in the book)
+                sendCfp(ai, ai.bidders);
+                schedule(ai, BLIND_BID_WINDOW);
+                closeIfAllSealed(ai);
+            }
+        }
+    }
+
+    // next tick relative to the clock's start, not to the last wakeup -> slow wakeups don't add up
+    private void scheduleTick(AuctionInfo ai) {
+        ai.nextTickAt += DUTCH_CLOCK.tickMillis() * 1_000_000;
+        schedule(ai, Math.max(0, (ai.nextTickAt - System.nanoTime()) / 1_000_000));
+    }
+
+    // nobody accepted yet -> lower the price and call it out; a clock already at its floor ends unsold
+    private void tickDutch(AuctionInfo ai) {
+        if (ai.bidders.isEmpty()) {
+            ai.roundOpen = false;
+            stopWithoutBidders(ai);
+            return;
+        }
+        if (ai.currentPrice <= DUTCH_CLOCK.floorPrice(ai.spec.startingPrice())) {
+            closeRound(ai);
+            return;
+        }
+        double price = DUTCH_CLOCK.next(ai.currentPrice, ai.spec.startingPrice(), ++ai.clockTicks);
+        if (price < ai.currentPrice) {
+            ai.currentPrice = price;
+            ai.totalRounds++;
+            journal.round(ai.id, ai.totalRounds, price);
+            if (Log.debugEnabled()) {
+                Log.debug(getLocalName(), "Dutch current price: [%.6f]", ai.currentPrice);
+            }
+            if (resolveThresholds(ai)) return;
+            sendCfp(ai, clockReceivers(ai));
+        }
+        scheduleTick(ai);
+    }
+
+    // ENGLISH bidders that still bid round by round: the ones without a proxy
+    private static Collection<AID> roundReceivers(AuctionInfo ai) {
+        if (ai.proxies.isEmpty()) return ai.bidders;
+        List<AID> receivers = new ArrayList<>();
+        for (AID b : ai.bidders) {
+            if (!ai.proxies.contains(b)) {
+                receivers.add(b);
+            }
+        }
+        return receivers;
+    }
+
+    // bidders the clock still calls the price out to: the ones without a sealed threshold
+    private static Collection<AID> clockReceivers(AuctionInfo ai) {
+        if (ai.dutchThresholds.isEmpty()) return ai.bidders;
+        List<AID> receivers = new ArrayList<>();
+        for (AID b : ai.bidders) {
+            if (!ai.dutchThresholds.contains(b)) {
+                receivers.add(b);
+            }
+        }
+        return receivers;
+    }
+
+    private void stopWithoutBidders(AuctionInfo ai) {
+        Log.info(getLocalName(), "STOP AUCTION: Auction %s is CLOSED — no more bidders.", ai.id);
+        journal.closed(ai.id, null, ai.currentPrice);
+        recordOutcome(ai, false);
+
+        // seller still gets a result, just without a winner
+        ACLMessage endMsg = new ACLMessage(ACLMessage.INFORM);
+        endMsg.addReceiver(ai.seller);
+        endMsg.setOntology("AUCTION_RESULT");
+        endMsg.setConversationId(ai.id);
+        endMsg.setByteSequenceContent(AuctionCodec.encode(new AuctionResult(ai.id, ai.type, null, ai.currentPrice, ai.spec.title())));
+        send(endMsg);
+
+        finishAuction(ai);
+    }
+
+    // one CFP for all the given bidders, carrying the auction's current round + price
+    private void sendCfp(AuctionInfo ai, Collection<AID> receivers) {
+        if (receivers.isEmpty()) return;
+        ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+        for (AID b : receivers) {
+            cfp.addReceiver(b);
+        }
+        cfp.setConversationId(ai.id);
+        cfp.setByteSequenceContent(AuctionCodec.encode(new Cfp(ai.id, ai.totalRounds, ai.currentPrice)));
+        send(cfp);
+        Metrics.cfpsSent.add(receivers.size());
+    }
+
+    // round deadline reached -> evaluate what came in
+    private void closeRound(AuctionInfo ai) {
+        ai.roundOpen = false;
+        Metrics.roundDuration(ai.type).recordSince(ai.roundOpenedAt);
+        switch (ai.type) {
+            case ENGLISH -> closeEnglishRound(ai);
+            case DUTCH -> closeDutchRound(ai);
+            case BLIND -> closeBlindAuction(ai);
+        }
+    }
+
+    private void closeEnglishRound(AuctionInfo ai) {
+        if (!ai.gotNewBid || ai.bidders.size() == 1 || ai.totalRounds >= 5) {
+            ai.roundsWithoutBid++;
+            if (ai.roundsWithoutBid >= 1) { // end auction after 1 empty round -> catches 1-bidder edge case
+//                System.out.println("CURRENT BIDDERS= " + ai.bidders);
+                closeEnglishAuction(ai);
+                return;
+            }
+        } else {
+            ai.roundsWithoutBid = 0;
+            ai.highestBidder = null;
+        }
+        schedule(ai, ENGLISH_ROUND_GAP);
+    }
+
+    // the leader so far wins at its bid
+    private void closeEnglishAuction(AuctionInfo ai) {
+        String winner = buyerName(ai.finalWinner);
+        Log.info(getLocalName(), "Auction %s CLOSED. Winner: %s | Final Price: %.2f | Book Info: %s%s",
+                ai.id,
+                winner != null ? winner : "None",
+                ai.currentPrice,
+                ai.spec,
+                ai.totalRounds >= 5 ? "\n--Closed due to 5 round limit." : "");
+
+        if (winner != null) {
+            sendReputationUpdate(winner, "won");
+        }
+        // notify seller, winner, gui
+        sendResult(ai, winner, ai.currentPrice);
+
+        finishAuction(ai);
+    }
+
+    private void closeDutchRound(AuctionInfo ai) {
+        // the winner pays the price it accepted; nobody before the floor -> unsold
+        ai.finalWinner = ai.bestAcceptor;
+        String winnerName = buyerName(ai.finalWinner);
+        if (winnerName != null) {
+            ai.currentPrice = ai.bestAcceptedPrice;
+        }
+        Log.info(getLocalName(), "Dutch auction %s CLOSED. Winner: %s | Final Price: %.2f (%d ticks) | Book Info: %s",
+                ai.id, winnerName != null ? winnerName : "None", ai.currentPrice, ai.clockTicks, ai.spec);
+
+        // notify each party: seller -> winner -> user gui
+        if (winnerName != null) {
+            sendReputationUpdate(winnerName, "won");
+        }
+        sendResult(ai, winnerName, ai.currentPrice);
+
+        // next auction
+        finishAuction(ai);
+    }
+
+    private void closeBlindAuction(AuctionInfo ai) {
+        // pick winner + price by the auction's pricing rule, send it + notify everyone else of results
+        SealedBidBook.Outcome outcome = ai.sealedBook.resolve(ai.spec.pricing(), ai.spec.startingPrice());
+        ai.finalWinner = outcome.winner();
+        ai.currentPrice = outcome.price();
+
+        String who = buyerName(outcome.winner());
+        Log.info(getLocalName(), "Blind auction %s CLOSED. Winner: %s | Final Price: %.2f (%s, %d bids) | Book Info: %s",
+                ai.id, who != null ? who : "None", outcome.price(), ai.spec.pricing(), outcome.bids(), ai.spec);
+
+        sendResult(ai, who, outcome.price());
+
+        // free the slot + start next auction if any
+        finishAuction(ai);
+    }
+
+    // one encoded AUCTION_RESULT for seller, winner and the user gui, plus one close notice (CANCEL) with the same
+    // result for the bidders still registered -> they stop waiting and settle their budget reservations
+    private void sendResult(AuctionInfo ai, String winner, double price) {
+        journal.closed(ai.id, winner, price);
+        recordOutcome(ai, winner != null);
+        ACLMessage res = new ACLMessage(ACLMessage.INFORM);
+        res.setOntology("AUCTION_RESULT");
+        res.setConversationId(ai.id);
+        res.addReceiver(ai.seller);
+        if (winner != null) {
+            res.addReceiver(new AID(winner, AID.ISLOCALNAME));
+        }
+        if (!"user-agent".equals(winner)) {
+            res.addReceiver(new AID("user-agent", AID.ISLOCALNAME));
+        }
+        byte[] result = AuctionCodec.encode(new AuctionResult(ai.id, ai.type, winner, price, ai.spec.title()));
+        res.setByteSequenceContent(result);
+        send(res);
+
+        if (!ai.bidders.isEmpty()) {
+            ACLMessage closed = new ACLMessage(ACLMessage.CANCEL);
+            closed.setOntology("AUCTION_CLOSED");
+            closed.setConversationId(ai.id);
+            for (AID b : ai.bidders) {
+                closed.addReceiver(b);
             }
+            closed.setByteSequenceContent(result);
+            send(closed);
+        }
+    }
+
+    // e.g., buyer2-bidder-abc -> buyer2 (null stays null)
+    private static String buyerName(AID bidder) {
+        return bidder == null ? null : bidder.getLocalName().split("-bidder-")[0];
+    }
+
+    private boolean hasFreeSlot() {
+        return activeAuctions < maxConcurrentAuctions;
+    }
+
+    // marks the auction as done, frees its slot and pulls in as many queued auctions as there is room for
+    private void finishAuction(AuctionInfo ai) {
+        if (!ai.active) return;
+        ai.active = false;
+        ai.roundOpen = false;
+        activeAuctions--;
+        Metrics.activeAuctions.decrementAndGet();
+        avgAuctionMillis += ((System.nanoTime() - ai.startedAt) / 1e6 - avgAuctionMillis) * 0.1;
+
+        // out of the live map, only a small summary is kept
+        auctions.remove(ai.id);
+        history.add(ai);
+
+        cancelRoundTimer(ai);
+        TimingWheel.Timer end = endTimers.remove(ai.id);
+        if (end != null) {
+            end.cancel();
+        }
+
+        startPending();
+    }
+
+    // a request whose start time has come (or that has none): straight into a free slot, else into the queue
+    private void admit(AID seller, AuctionSpec spec, boolean journaled) {
+        if (hasFreeSlot()) {
+            startAuction(seller, spec);
+        } else {
+            enqueue(seller, spec, journaled);
+        }
+    }
+
+    // waits in the wheel until its start time, then is admitted like a new request (already journaled as queued,
+    // it counts against the queue capacity meanwhile)
+    private void scheduleStart(AID seller, AuctionSpec spec, boolean journaled) {
+        if (!journaled) {
+            if (queueFull()) {
+                refuse(seller, spec);
+                return;
+            }
+            journal.queued(seller.getName(), spec);
+        }
+        scheduledAuctions++;
+        Metrics.scheduledAuctions.incrementAndGet();
+        at(spec.startAt() - System.currentTimeMillis(), () -> {
+            scheduledAuctions--;
+            Metrics.scheduledAuctions.decrementAndGet();
+            admit(seller, spec, true);
         });
+        Log.info(getLocalName(), "~~ Auction scheduled for %tT: %s ~~", spec.startAt(), spec);
+    }
+
+    private void startPending() {
+        while (hasFreeSlot() && !pendingAuctions.isEmpty()) {
+            PendingAuction next = pendingAuctions.pollFirst();
+            Metrics.queuedAuctions.decrementAndGet();
+            Metrics.queueWait.recordSince(next.queuedAt());
+            startAuction(next.seller(), next.spec());
+        }
     }
 
-    private boolean isAuctionActive() {
-        return auctions.values().stream().anyMatch(ai -> ai.active);
+    // queued + scheduled requests share the capacity
+    private boolean queueFull() {
+        return pendingAuctions.size() + scheduledAuctions >= QUEUE_CAPACITY;
+    }
+
+    // no free slot -> into the queue by priority. Full -> whichever of the new request and the lowest ranked queued
+    // one ranks lower is refused, with a hint when to try again (scheduled requests are never pushed out: with
+    // nothing queued the new one is refused)
+    private void enqueue(AID seller, AuctionSpec spec, boolean journaled) {
+        PendingAuction p = new PendingAuction(seller, spec, sellerScore(seller), pendingSeq++, System.nanoTime());
+        if (queueFull()) {
+            PendingAuction lowest = pendingAuctions.isEmpty() ? null : pendingAuctions.last();
+            if (lowest == null || PendingAuction.ORDER.compare(p, lowest) > 0) {
+                if (journaled) journal.dequeued(seller.getName(), spec);
+                refuse(seller, spec);
+                return;
+            }
+            pendingAuctions.pollLast();
+            Metrics.queuedAuctions.decrementAndGet();
+            journal.dequeued(lowest.seller().getName(), lowest.spec());
+            refuse(lowest.seller(), lowest.spec());
+        }
+        pendingAuctions.add(p);
+        Metrics.queuedAuctions.incrementAndGet();
+        if (!journaled) journal.queued(seller.getName(), spec);
+        Log.info(getLocalName(), "~~ Auction queued: %s (%d waiting) ~~", spec, pendingAuctions.size());
+    }
+
+    // REFUSE carries the request back (the seller can resend it as is) + "retry-after" in ms
+    private void refuse(AID seller, AuctionSpec spec) {
+        ACLMessage refuse = new ACLMessage(ACLMessage.REFUSE);
+        refuse.addReceiver(seller);
+        refuse.setOntology("NEW_AUCTION");
+        refuse.setByteSequenceContent(AuctionCodec.encode(spec));
+        refuse.addUserDefinedParameter("retry-after", String.valueOf(retryAfterMillis()));
+        send(refuse);
+        Metrics.auctionsRefused.increment();
+        Log.info(getLocalName(), "Auction queue full, refused: %s", spec);
+    }
+
+    // roughly until the queue ahead has been worked off once
+    private long retryAfterMillis() {
+        return Math.round((pendingAuctions.size() / maxConcurrentAuctions + 1) * avgAuctionMillis);
+    }
+
+    private int sellerScore(AID seller) {
+        SellerRecord rec = sellers.get(seller.getLocalName());
+        return rec == null ? SellerRecord.NEW_SELLER : rec.score();
+    }
+
+    private void recordOutcome(AuctionInfo ai, boolean sold) {
+        SellerRecord rec = sellers.computeIfAbsent(ai.seller.getLocalName(), _ -> new SellerRecord());
+        if (sold) {
+            rec.sold++;
+        } else {
+            rec.unsold++;
+        }
+    }
+
+    // picks up what the journal had when this manager last stopped: running auctions get their bidders, bids and
+    // price back and continue with a fresh round after the first round delay (the bidders are still waiting for CFPs),
+    // queued requests go back into the queue
+    private void recover(AuctionJournal.Recovery r) {
+        if (r.auctions().isEmpty() && r.queued().isEmpty()) return;
+        for (AuctionJournal.LiveAuction la : r.auctions()) {
+            AuctionInfo ai = restore(la);
+            auctions.put(ai.id, ai);
+            activeAuctions++;
+            Metrics.activeAuctions.incrementAndGet();
+            if (ai.bestAcceptor != null) {
+                closeDutchRound(ai); // accepted just before the crash, only the close was missing
+            } else {
+                schedule(ai, FIRST_ROUND_DELAY);
+                scheduleEnd(ai);
+            }
+        }
+        for (AuctionJournal.Event q : r.queued()) {
+            AID seller = new AID(q.agent(), AID.ISGUID);
+            if (q.spec().startAt() > System.currentTimeMillis()) {
+                scheduleStart(seller, q.spec(), true);
+            } else {
+                pendingAuctions.add(new PendingAuction(seller, q.spec(), sellerScore(seller), pendingSeq++, System.nanoTime()));
+                Metrics.queuedAuctions.incrementAndGet();
+            }
+        }
+        Metrics.journalRecovery.accumulate(r.millis());
+        Log.info(getLocalName(), "Recovered %d running + %d queued auctions from the journal (%d events replayed) in %d ms",
+                r.auctions().size(), r.queued().size(), r.replayed(), r.millis());
+        startPending();
+    }
+
+    private static AuctionInfo restore(AuctionJournal.LiveAuction la) {
+        AuctionInfo ai = new AuctionInfo(la.started().spec(), new AID(la.started().agent(), AID.ISGUID));
+        for (AuctionJournal.Event reg : la.registered()) {
+            AID bidder = new AID(reg.agent(), AID.ISGUID);
+            ai.bidders.add(bidder);
+            if (ai.type == AuctionType.BLIND) {
+                if (isUser(bidder)) {
+                    ai.sealedBook.watch(bidder);
+                } else {
+                    ai.sealedBook.register(bidder);
+                }
+            } else if (ai.type == AuctionType.DUTCH && reg.price() > 0) {
+                ai.dutchThresholds.put(bidder, reg.price());
+            } else if (ai.type == AuctionType.ENGLISH && reg.price() > 0) {
+                ai.proxies.put(bidder, reg.price());
+            }
+        }
+        // bids first, then the round: every journaled ENGLISH bid was accepted when it came in, so each one took
+        // the lead in journal order (a proxy bid may have opened at the starting price) -> the round can't lower it
+        for (AuctionJournal.Event bid : la.bids()) {
+            AID bidder = new AID(bid.agent(), AID.ISGUID);
+            switch (ai.type) {
+                case ENGLISH -> ai.leadEnglish(bidder, bid.price());
+                case DUTCH -> ai.offerDutch(bidder, bid.price(), bid.limit());
+                case BLIND -> {
+                    ai.sealedBook.register(bidder); // a sealed bid stays even if its bidder left afterwards
+                    ai.sealedBook.submit(bidder, bid.price());
+                }
+            }
+        }
+        if (la.round() != null) {
+            ai.totalRounds = la.round().round();
+            ai.currentPrice = ai.type == AuctionType.ENGLISH
+                    ? Math.max(ai.currentPrice, la.round().price())
+                    : la.round().price(); // DUTCH: the last called price
+        }
+        return ai;
     }
 
     private void sendReputationUpdate(String buyerName, String event) {
@@ -350,106 +994,50 @@ public class AuctionManagerAgent extends Agent {
         send(update);
     }
 
-    // helper function to parse the string with all the auction details
-    // TEMPORARY: also handles some BLIND bidding auction logic (will be moved to a separate function)
-    private void startAuctionFromMessage(ACLMessage msg) {
-        String auctionId = UUID.randomUUID().toString();
-        String[] parts = msg.getContent().split(";");
-        double start = Double.parseDouble(
-                msg.getContent().split("StartingPrice=")[1].split(";")[0]
-        );
-        String typeStr = Arrays.stream(parts)
-                .filter(p -> p.startsWith("Type="))
-                .findFirst()
-                .map(p -> p.substring(5))
-                .orElse("ENGLISH");
-        AuctionType type = AuctionType.valueOf(typeStr.toUpperCase());
-
-        AuctionInfo ai = new AuctionInfo(auctionId, msg.getSender(), msg.getContent(), start, type);
-        auctions.put(auctionId, ai);
+    private void startAuction(AID seller, AuctionSpec request) {
+        AuctionSpec spec = request.withId(AuctionRouter.newAuctionId(shard));
+        AuctionInfo ai = new AuctionInfo(spec, seller);
+        auctions.put(ai.id, ai);
+        activeAuctions++;
+        Metrics.activeAuctions.incrementAndGet();
+        journal.started(ai.id, seller.getName(), spec);
 
-        System.out.println("Started auction: " + ai.metadata);
+        Log.info(getLocalName(), "Started auction: %s (running: %d/%d)", ai.spec, activeAuctions, maxConcurrentAuctions);
 
         // notify notification agent to inform interested buyers
         ACLMessage announce = new ACLMessage(ACLMessage.INFORM);
         announce.setOntology("AUCTION_ANNOUNCE");
-        announce.setContent(auctionId + ";" + msg.getContent());
+        announce.setConversationId(ai.id);
+        announce.setByteSequenceContent(AuctionCodec.encode(spec));
         announce.addReceiver(new AID("notification", AID.ISLOCALNAME));
         announce.addReceiver(new AID("user-agent", AID.ISLOCALNAME)); // for user
         send(announce);
 
-        // BLIND Auction logic
-        if (type == AuctionType.BLIND){
-            addBehaviour(new WakerBehaviour(this, 10000) {
-                protected void onWake() {
-                    //brodcast the CFP
-                    ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
-                    for (AID b : ai.bidders) {
-                        cfp.addReceiver(b);
-                    }
-                    cfp.setContent(String.valueOf(ai.currentPrice));
-                    send(cfp);
-
-                    //  collect the COMPUTER blind bids for 2s (user's are collected separately, before this)
-                    Map<AID, Double> sealed = new HashMap<>();
-                    MessageTemplate mt = MessageTemplate.MatchPerformative(ACLMessage.PROPOSE);
-                    long deadline = System.currentTimeMillis() + 2000;
-                    while (System.currentTimeMillis() < deadline) {
-                        ACLMessage bid = receive(mt);
-                        if (bid != null) {
-                            try {
-                                double val = Double.parseDouble(bid.getContent());
-                                sealed.put(bid.getSender(), val);
-                            } catch (NumberFormatException ignored) {}
-                        } else {
-                            block(deadline - System.currentTimeMillis());
-                        }
-                    }
+        // give bidders time to register before the first round / the sealed-bid window opens
+        schedule(ai, FIRST_ROUND_DELAY);
+        scheduleEnd(ai);
+    }
 
-                    // pick winner, build winning string and send it + notify everyone else of results
-                    AID winner = null;
-                    double max = -1;
-                    for (var e : sealed.entrySet()) {
-                        if (e.getValue() > max) {
-                            max = e.getValue();
-                            winner = e.getKey();
-                        }
-                    }
-                    ai.active = false;
-                    ai.finalWinner = winner;
-                    ai.currentPrice = max;
-
-                    String who = (winner != null) ? winner.getLocalName().split("-")[0] : "None";
-                    String result = String.format(
-                            "Blind auction %s CLOSED. Winner: %s | Final Price: %.2f | Book Info: %s",
-                            ai.id, who, max, ai.metadata
-                    );
-
-                    ACLMessage infS = new ACLMessage(ACLMessage.INFORM);
-                    infS.addReceiver(ai.seller);
-                    infS.setContent(result);
-                    send(infS);
-
-                    if (winner != null) {
-                        ACLMessage infW = new ACLMessage(ACLMessage.INFORM);
-                        infW.setOntology("AUCTION_RESULT");
-                        infW.addReceiver(new AID(who, AID.ISLOCALNAME));
-                        infW.setContent("You won Blind auction " + ai.id + " at price " + max);
-                        send(infW);
-                    }
+    // an auction request waiting for a free slot
+    // order: seller score (higher first) -> scheduled start (earlier first, unscheduled last) ->
+    // starting price = reserve (higher first) -> arrival
+    private record PendingAuction(AID seller, AuctionSpec spec, int sellerScore, long seq, long queuedAt) {
+        static final Comparator<PendingAuction> ORDER = Comparator
+                .comparingInt(PendingAuction::sellerScore).reversed()
+                .thenComparingLong(p -> p.spec().startAt() > 0 ? p.spec().startAt() : Long.MAX_VALUE)
+                .thenComparing(Comparator.comparingDouble((PendingAuction p) -> p.spec().startingPrice()).reversed())
+                .thenComparingLong(PendingAuction::seq);
+    }
 
-                    ACLMessage gui = new ACLMessage(ACLMessage.INFORM);
-                    gui.setOntology("AUCTION_RESULT");
-                    gui.addReceiver(new AID("user-agent", AID.ISLOCALNAME));
-                    gui.setContent(result);
-                    send(gui);
+    // seller reputation as far as this manager saw it: sold auctions raise it, unsold ones lower it (0-5 like buyers)
+    private static class SellerRecord {
+        static final int NEW_SELLER = 3;
+        int sold = 0;
+        int unsold = 0;
 
-                    // start next auction if any
-                    if (!pendingAuctions.isEmpty()) {
-                        startAuctionFromMessage(pendingAuctions.poll());
-                    }
-                }
-            });
+        int score() {
+            double raw = NEW_SELLER + (sold * 0.5) - unsold;
+            return (int) Math.round(Math.max(0, Math.min(5, raw)));
         }
     }
 }
@@ -0,0 +1,50 @@
+package Auction;
+
+// JMX view of Metrics (jconsole -> MBeans -> Auction/Metrics), histogram attributes are "n=.. p50=.. p90=.. p99=.. max=.. ms"
+public interface AuctionMetricsMBean {
+
+    int getActiveAuctions();
+
+    int getQueuedAuctions();
+
+    int getScheduledAuctions(); // waiting for their start time
+
+    long getRefusedAuctions(); // queue full
+
+    String getQueueWait(); // queued -> started
+
+    long getBidsPlaced(); // by the bidding sessions
+
+    long getBidsAccepted();
+
+    long getBidsRejected();
+
+    long getCfpsSent();
+
+    long getOutbidSent(); // OUTBID notices to English proxy bidders
+
+    String getEnglishRoundDuration();
+
+    String getDutchRoundDuration();
+
+    String getBlindRoundDuration();
+
+    String getCfpToProposeLatency();
+
+    String getBiddingAgentSpawnTime();
+
+    long getJournalEvents();
+
+    String getJournalFlush(); // write + fsync of one batch
+
+    long getJournalRecoveryMillis(); // snapshot + journal replay at startup, slowest shard
+
+    int getManagerInboxDepth(); // all shards together
+
+    int getNotificationInboxDepth();
+
+    int getReputationInboxDepth();
+
+    // CFP -> PROPOSE latency of one buyer
+    String bidderLatency(String buyer);
+}
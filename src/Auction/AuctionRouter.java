@@ -0,0 +1,80 @@
+package Auction;
+
+import jade.core.AID;
+import jade.wrapper.ContainerController;
+import jade.wrapper.StaleProxyException;
+
+import java.util.UUID;
+
+// which AuctionManagerAgent shard owns what (-Dauction.shards=<n>, default 1, same value in every container)
+// - shard 0 keeps the old name "auction-manager", the others are "auction-manager-<i>"
+// - a new auction goes to the shard of its title's hash, picked by the seller itself
+// - the owning shard puts its index in front of the auction id ("2-<uuid>") -> REGISTER, bids and DEREGISTER
+//   are routed from the id alone
+// nothing on the message path asks the DF, the shards register there for discovery and tools only
+final class AuctionRouter {
+
+    static final String SERVICE_TYPE = "auction-manager";
+    private static final String BASE_NAME = "auction-manager";
+    private static final int SHARDS = Math.max(1, Integer.getInteger("auction.shards", 1));
+
+    private AuctionRouter() {}
+
+    static int shards() {
+        return SHARDS;
+    }
+
+    static String managerName(int shard) {
+        return shard == 0 ? BASE_NAME : BASE_NAME + "-" + shard;
+    }
+
+    // shard index of a manager agent by its local name
+    static int shardOf(String managerName) {
+        if (!managerName.startsWith(BASE_NAME + "-")) return 0;
+        try {
+            return Integer.parseInt(managerName.substring(BASE_NAME.length() + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static boolean isManager(AID aid) {
+        String name = aid.getLocalName();
+        return name.equals(BASE_NAME) || name.startsWith(BASE_NAME + "-");
+    }
+
+    // where a new auction is requested
+    static AID managerFor(AuctionSpec spec) {
+        return manager(Math.floorMod(spec.title().hashCode(), SHARDS));
+    }
+
+    // the shard that owns a running auction; ids without a shard prefix belong to shard 0
+    static AID managerOf(String auctionId) {
+        return manager(shardOfAuction(auctionId));
+    }
+
+    static int shardOfAuction(String auctionId) {
+        int dash = auctionId == null ? -1 : auctionId.indexOf('-');
+        if (dash <= 0) return 0;
+        try {
+            return Integer.parseInt(auctionId, 0, dash, 10) % SHARDS;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static String newAuctionId(int shard) {
+        return shard + "-" + UUID.randomUUID();
+    }
+
+    // one manager per shard, each with the same arguments
+    static void startShards(ContainerController container, Object[] args) throws StaleProxyException {
+        for (int i = 0; i < SHARDS; i++) {
+            container.createNewAgent(managerName(i), AuctionManagerAgent.class.getName(), args).start();
+        }
+    }
+
+    private static AID manager(int shard) {
+        return new AID(managerName(shard), AID.ISLOCALNAME);
+    }
+}
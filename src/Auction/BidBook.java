@@ -0,0 +1,145 @@
+package Auction;
+
+import jade.core.AID;
+
+import java.util.*;
+
+// every accepted bid of one auction, in arrival order: bidder slot, price and time in parallel primitive arrays
+// (a bid costs 20 bytes, no ACLMessage or boxed value is kept). Bidders are interned once into slots, the best bid is
+// kept up to date on insert -> O(1), top-k is one pass with a k-sized heap
+final class BidBook {
+
+    // a bid as handed out by queries (the book itself never stores these)
+    record Entry(AID bidder, double price, long time) {}
+
+    private final Map<AID, Integer> slots = new HashMap<>();
+    private AID[] bidders = new AID[8];
+    private int bidderCount;
+
+    private int[] bidder = new int[16];
+    private double[] price = new double[16];
+    private long[] time = new long[16];   // epoch millis
+    private int size;
+    private int best = -1;                // highest price, the earlier bid wins a tie
+
+    // slot of the bidder, a new one on first sight
+    int intern(AID b) {
+        Integer slot = slots.get(b);
+        if (slot != null) return slot;
+        if (bidderCount == bidders.length) {
+            bidders = Arrays.copyOf(bidders, bidderCount * 2);
+        }
+        bidders[bidderCount] = b;
+        slots.put(b, bidderCount);
+        return bidderCount++;
+    }
+
+    // -1 if the bidder never got a slot
+    int slotOf(AID b) {
+        Integer slot = slots.get(b);
+        return slot == null ? -1 : slot;
+    }
+
+    AID bidder(int slot) {
+        return bidders[slot];
+    }
+
+    // returns the bid's index = its arrival order
+    int add(AID b, double amount) {
+        return add(intern(b), amount);
+    }
+
+    int add(int slot, double amount) {
+        if (size == price.length) grow();
+        bidder[size] = slot;
+        price[size] = amount;
+        time[size] = System.currentTimeMillis();
+        if (best < 0 || amount > price[best]) {
+            best = size;
+        }
+        return size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // drops the bids, keeps the bidder slots and the capacity
+    void clear() {
+        size = 0;
+        best = -1;
+    }
+
+    // null if there are no bids yet
+    Entry best() {
+        return best < 0 ? null : entry(best);
+    }
+
+    // the k highest bids, best first (ties: earlier first)
+    List<Entry> top(int k) {
+        int n = Math.min(k, size);
+        if (n <= 0) return List.of();
+        // min-heap of the n best seen so far, root = the weakest of them
+        int[] heap = new int[n];
+        int filled = 0;
+        for (int i = 0; i < size; i++) {
+            if (filled < n) {
+                heap[filled] = i;
+                siftUp(heap, filled++);
+            } else if (better(i, heap[0])) {
+                heap[0] = i;
+                siftDown(heap, n);
+            }
+        }
+        Entry[] out = new Entry[n];
+        for (int j = n - 1; j >= 0; j--) {
+            out[j] = entry(heap[0]);
+            heap[0] = heap[j];
+            siftDown(heap, j);
+        }
+        return Arrays.asList(out);
+    }
+
+    private Entry entry(int i) {
+        return new Entry(bidders[bidder[i]], price[i], time[i]);
+    }
+
+    // bid a ranks above bid b
+    private boolean better(int a, int b) {
+        return price[a] > price[b] || (price[a] == price[b] && a < b);
+    }
+
+    private void siftUp(int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!better(heap[parent], heap[i])) break;
+            swap(heap, i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int n) {
+        int i = 0;
+        while (true) {
+            int l = 2 * i + 1, r = l + 1, weakest = i;
+            if (l < n && better(heap[weakest], heap[l])) weakest = l;
+            if (r < n && better(heap[weakest], heap[r])) weakest = r;
+            if (weakest == i) return;
+            swap(heap, i, weakest);
+            i = weakest;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int t = heap[a];
+        heap[a] = heap[b];
+        heap[b] = t;
+    }
+
+    private void grow() {
+        int n = price.length * 2;
+        bidder = Arrays.copyOf(bidder, n);
+        price = Arrays.copyOf(price, n);
+        time = Arrays.copyOf(time, n);
+    }
+}
@@ -0,0 +1,253 @@
+package Auction;
+
+import jade.core.Agent;
+import jade.lang.acl.ACLMessage;
+
+// one buyer's participation in one auction, without an agent of its own
+// BiddingAgent runs exactly one of these, a multiplexed BuyerAgent runs one per auction (keyed by conversation id)
+class BiddingSession {
+
+    // -Dauction.dutch.thresholds=true: DUTCH bidders seal their acceptance threshold in the registration and
+    // leave the accepting to the manager, instead of answering the clock tick by tick
+    static final boolean SEALED_DUTCH_THRESHOLDS = Boolean.getBoolean("auction.dutch.thresholds");
+    // -Dauction.english.proxy=true: ENGLISH bidders register with their maximum and the manager bids for them,
+    // instead of answering a CFP every round (see ProxyBids)
+    static final boolean PROXY_ENGLISH_BIDS = Boolean.getBoolean("auction.english.proxy");
+
+    private final Agent owner;         // agent that sends/receives for this session
+    private final AuctionSpec spec;
+    private final String auctionId;
+    private final String buyerName;    // log source
+    private final double startPrice;   // (for DUTCH) - starter price
+    private final BiddingStrategy strategy;
+    private final BudgetLedger ledger; // the buyer's budget, shared with its other auctions
+    private final Histogram latency;   // this buyer's CFP -> PROPOSE time
+    private double lastOwnBid = -1;    // track last bid placed
+    private boolean standing = false;  // final bid is in (and reserved), only the close is left
+    private boolean finished = false;
+
+    BiddingSession(Agent owner, AuctionSpec spec, String buyerName, BiddingStrategies stratType, BudgetLedger ledger) {
+        this.owner = owner;
+        this.spec = spec;
+        this.auctionId = spec.auctionId();
+        this.startPrice = spec.startingPrice();
+        this.ledger = ledger;
+        this.strategy = createStrategy(stratType);
+        this.latency = Metrics.bidderLatency(buyerName);
+
+        this.buyerName = buyerName;
+
+        Log.info(buyerName, "Starting to bid on Auction ID: %s | Strategy: %s | Budget: %.2f | Start Price: %.2f",
+                auctionId, stratType.name(), ledger.available(), startPrice);
+    }
+
+    static BiddingStrategy createStrategy(BiddingStrategies stratType) {
+        return switch (stratType) {
+            case ONESHOT     -> new OneShotStrategy();
+            case PERIODIC    -> new PeriodicStrategy();
+            case ALWAYSFIRST -> new AlwaysFirstStrategy();
+            case CAUTIOUS    -> new CautiousStrategy();
+        };
+    }
+
+    String auctionId() {
+        return auctionId;
+    }
+
+    // true once the session has nothing more to do (auction closed, or left it without a standing bid)
+    boolean isFinished() {
+        return finished;
+    }
+
+    // register bid with AuctionManager
+    void register() {
+        ACLMessage reg = new ACLMessage(ACLMessage.SUBSCRIBE);
+        reg.addReceiver(AuctionRouter.managerOf(auctionId));
+        reg.setOntology("REGISTER");
+        reg.setConversationId(auctionId);
+        reg.setContent(auctionId);
+        if (spec.type() == AuctionType.DUTCH && SEALED_DUTCH_THRESHOLDS) {
+            // computed once, not per tick, and reserved as a whole (the manager may accept anything up to it);
+            // an unusable one -> plain registration, the CFPs decide
+            double threshold = Math.min(strategy.calculateBid(startPrice, ledger.available()), ledger.available());
+            if (threshold > 0 && ledger.reserve(auctionId, threshold)) {
+                standing = true;
+                reg.setByteSequenceContent(AuctionCodec.encode(new Bid(auctionId, threshold, threshold)));
+                Metrics.bidsPlaced.increment();
+                Log.info(buyerName, "Dutch threshold sealed: %.2f", threshold);
+            }
+        } else if (spec.type() == AuctionType.ENGLISH && PROXY_ENGLISH_BIDS) {
+            // same deal: reserved as a whole, the win gives back whatever is above the final price
+            double max = proxyMaximum();
+            if (max > 0 && ledger.reserve(auctionId, max)) {
+                standing = true;
+                reg.setByteSequenceContent(AuctionCodec.encode(new Bid(auctionId, max, max)));
+                Metrics.bidsPlaced.increment();
+                Log.info(buyerName, "Proxy maximum sealed: %.2f", max);
+            }
+        }
+        owner.send(reg);
+    }
+
+    // the highest bid the strategy would get to round by round against someone who always tops it
+    // (-1 if it wouldn't even open), within the free budget
+    private double proxyMaximum() {
+        double budget = ledger.available();
+        double price = startPrice;
+        double max = -1;
+        for (int i = 0; i < 100; i++) { // ALWAYSFIRST halves the gap to the budget, the others grow by percent
+            double bid = Math.min(strategy.calculateBid(price, budget), budget);
+            if (!(bid > price)) break;
+            price = max = bid;
+        }
+        return max;
+    }
+
+    // REJECT_PROPOSAL: the manager's proxy couldn't follow any more (OUTBID), or our sealed bid was refused
+    // (BID_REJECTED, e.g. under the reserve) -> out of the auction, the reservation is free again
+    void onRejected(ACLMessage reject) {
+        if (reject.hasByteSequenceContent()) {
+            try {
+                Bid at = AuctionCodec.decodeBid(reject.getByteSequenceContent());
+                if ("OUTBID".equals(reject.getOntology())) {
+                    Log.info(buyerName, "Outbid in auction %s at %.2f (max: %.2f)", auctionId, at.price(), at.limit());
+                } else {
+                    Log.info(buyerName, "Bid %.2f refused in auction %s (reserve: %.2f)", at.price(), auctionId, at.limit());
+                }
+            } catch (IllegalArgumentException ignored) {}
+        }
+        ledger.release(auctionId);
+        finished = true;
+    }
+
+    // manager refused the registration (auction already closed / unknown)
+    void onRefused(ACLMessage refuse) {
+        Log.info(buyerName, "Registration for auction %s refused (%s)", auctionId, refuse.getContent());
+        ledger.release(auctionId);
+        finished = true;
+    }
+
+    // the manager's close notice (CANCEL, AUCTION_CLOSED) carries the result: a winner keeps its reservation
+    // for the buyer to commit on AUCTION_RESULT, everyone else gets theirs back
+    void onClosed(ACLMessage cancel) {
+        AuctionResult result = null;
+        if (cancel.hasByteSequenceContent()) {
+            try {
+                result = AuctionCodec.decodeResult(cancel.getByteSequenceContent());
+            } catch (IllegalArgumentException ignored) {}
+        }
+        if (result == null || !buyerName.equals(result.winner())) {
+            ledger.release(auctionId);
+        }
+        finished = true;
+    }
+
+    void onCfp(ACLMessage cfp) {
+        if (finished || standing) return;
+        double calledPrice;
+        try {
+            calledPrice = AuctionCodec.decodeCfp(cfp.getByteSequenceContent()).price();
+        } catch (IllegalArgumentException e) {
+            return; // unreadable call, wait for the next one
+        }
+
+        switch (spec.type()) {
+            case BLIND -> bidBlind(cfp, calledPrice);
+            case DUTCH -> bidDutch(cfp, calledPrice);
+            case ENGLISH -> bidEnglish(cfp, calledPrice);
+        }
+    }
+
+    // BLIND auctions: single CFP, bid once and done
+    private void bidBlind(ACLMessage cfp, double highest) {
+        double bidVal = strategy.calculateBid(highest, ledger.available());
+        if (bidVal > 0 && ledger.reserve(auctionId, bidVal)) {
+            ACLMessage bid = new ACLMessage(ACLMessage.PROPOSE);
+            bid.addReceiver(AuctionRouter.managerOf(auctionId));
+            bid.setConversationId(auctionId);
+            bid.setByteSequenceContent(AuctionCodec.encode(new Bid(auctionId, bidVal, bidVal)));
+            owner.send(bid);
+            Metrics.bidsPlaced.increment();
+            recordLatency(cfp);
+            Log.info(buyerName, "~~ Blind bid placed: %.2f", bidVal);
+            standing = true;
+        } else {
+            Log.info(buyerName, "XX Skipped blind auction (calculated: %.2f)", bidVal);
+            deregister(); // not waited for any more -> the window can close once the others have bid
+            finished = true;
+        }
+    }
+
+    // DUTCH auction logic: wait until price <= threshold
+    private void bidDutch(ACLMessage cfp, double calledPrice) {
+        // compute the threshold for acceptance based on startPrice
+        double threshold = strategy.calculateBid(startPrice, ledger.available());
+        if (calledPrice <= threshold && ledger.reserve(auctionId, calledPrice)) {
+            // Accept: send both price and threshold
+            ACLMessage bid = cfp.createReply();
+            bid.setPerformative(ACLMessage.PROPOSE);
+            bid.setOntology("BID_ACCEPTED");
+            bid.setByteSequenceContent(AuctionCodec.encode(new Bid(auctionId, calledPrice, threshold)));
+            owner.send(bid);
+            Metrics.bidsPlaced.increment();
+            recordLatency(cfp);
+            Log.info(buyerName, "Dutch bid ACCEPTED at %.2f (threshold: %.2f)", calledPrice, threshold);
+            standing = true;  // nothing more to bid, the close tells whether it won
+        }
+    }
+
+    // ENGLISH auction logic
+    private void bidEnglish(ACLMessage cfp, double calledPrice) {
+        if (lastOwnBid == calledPrice) {
+            if (Log.debugEnabled()) {
+                Log.debug(buyerName, "Skipping bid — already highest (%.2f)", calledPrice);
+            }
+            return;
+        }
+
+        // compute threshold, bid if still in accepted limit (free budget + what our outbid bid here still holds)
+        double limit = ledger.limitFor(auctionId);
+        double bidVal = strategy.calculateBid(calledPrice, limit);
+        if (bidVal > calledPrice && ledger.reserve(auctionId, bidVal)) {
+            lastOwnBid = bidVal;
+            ACLMessage bid = cfp.createReply();
+            bid.setPerformative(ACLMessage.PROPOSE);
+            bid.setByteSequenceContent(AuctionCodec.encode(new Bid(auctionId, bidVal, bidVal)));
+            owner.send(bid);
+            Metrics.bidsPlaced.increment();
+            recordLatency(cfp);
+            if (Log.debugEnabled()) {
+                Log.debug(buyerName, "Bid %.2f (prev highest: %.2f)", bidVal, calledPrice);
+            }
+        } else {
+            if (Log.debugEnabled()) {
+                Log.debug(buyerName, "Not bidding (calculated: %.2f, budget: %.2f, current: %.2f)",
+                        bidVal, limit, calledPrice);
+            }
+            ledger.release(auctionId);
+
+            // not bidding -> deregister
+            deregister();
+            Log.info(buyerName, "Exiting auction %s — no longer bidding.", auctionId);
+            finished = true;
+        }
+    }
+
+    private void deregister() {
+        ACLMessage dereg = new ACLMessage(ACLMessage.CANCEL);
+        dereg.setOntology("DEREGISTER");
+        dereg.addReceiver(AuctionRouter.managerOf(auctionId));
+        dereg.setConversationId(auctionId);
+        dereg.setContent(auctionId);
+        owner.send(dereg);
+    }
+
+    // CFP arrival in our inbox (stamped by JADE) -> our answer going out
+    private void recordLatency(ACLMessage cfp) {
+        long arrived = cfp.getPostTimeStamp();
+        if (arrived <= 0) return;
+        long micros = (System.currentTimeMillis() - arrived) * 1000;
+        latency.record(micros);
+        Metrics.cfpToPropose.record(micros);
+    }
+}
@@ -67,7 +67,7 @@ class CautiousStrategy implements BiddingStrategy {
 
         if (currentPrice >= cutoff) {
             if (!explainedCutoff) {
-                System.out.printf("CautiousStrategy -> cutoff reached (%.2f >= %.2f)\n", currentPrice, cutoff);
+                Log.debug("CautiousStrategy", "cutoff reached (%.2f >= %.2f)", currentPrice, cutoff);
                 explainedCutoff = true;
             }
             return -1; // if cutoff, too expensive => quit
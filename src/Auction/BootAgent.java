@@ -11,13 +11,20 @@ enum AuctionType { ENGLISH, DUTCH, BLIND}
 
 // the "main" function of the code, we define setup, bidders and start
 public class BootAgent {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // headless load test instead of the demo: BootAgent --load [config.properties]
+        if (args.length > 0 && args[0].equals("--load")) {
+            LoadGenerator.run(args.length > 1 ? args[1] : "load.properties");
+            return;
+        }
+
         Runtime runtime = Runtime.instance();
         Profile profile = new ProfileImpl();
         Random random = new Random();
         ContainerController container = runtime.createMainContainer(profile);
         try {
-            container.createNewAgent("auction-manager", AuctionManagerAgent.class.getName(), null).start();
+            // arg -> how many auctions each manager shard runs side by side (-Dauction.shards=<n>, default 1)
+            AuctionRouter.startShards(container, new Object[]{4});
             container.createNewAgent("notification", NotificationAgent.class.getName(), null).start();
             container.createNewAgent("auction-gui", AuctionGuiAgent.class.getName(), null).start();
             container.createNewAgent("reputation-manager", ReputationManagerAgent.class.getName(), null).start();
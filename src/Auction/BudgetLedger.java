@@ -0,0 +1,78 @@
+package Auction;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// one buyer's budget, shared by all auctions it is in at the same time (its sessions / spawned BiddingAgents)
+// a standing bid reserves its amount, a won auction commits its price, an outbid or lost one releases it
+// -> bidding in many auctions at once can never promise more than the budget
+// lock-free: a CAS on the free amount + one AtomicLong per auction, amounts are kept in cents
+final class BudgetLedger {
+
+    private final AtomicLong free;
+    private final ConcurrentHashMap<String, AtomicLong> reserved = new ConcurrentHashMap<>(); // auction id -> cents
+
+    BudgetLedger(double budget) {
+        this.free = new AtomicLong(cents(budget));
+    }
+
+    // not reserved by any auction
+    double available() {
+        return free.get() / 100.0;
+    }
+
+    double reserved(String auctionId) {
+        AtomicLong r = reserved.get(auctionId);
+        return r == null ? 0 : r.get() / 100.0;
+    }
+
+    // what a bidder in this auction can still go up to: the free amount + what it already holds there
+    double limitFor(String auctionId) {
+        return available() + reserved(auctionId);
+    }
+
+    // the auction's reservation becomes amount (a raised bid only takes the difference, a lower one gives some back)
+    // false -> not enough free, nothing changed. Only the auction's own session reserves for it
+    boolean reserve(String auctionId, double amount) {
+        long want = cents(amount);
+        AtomicLong r = reserved.computeIfAbsent(auctionId, _ -> new AtomicLong());
+        while (true) {
+            long held = r.get();
+            if (!take(want - held)) return false;
+            if (r.compareAndSet(held, want)) return true;
+            free.addAndGet(want - held); // lost a race on the reservation, undo and retry
+        }
+    }
+
+    // outbid, left or lost -> the amount is free again
+    void release(String auctionId) {
+        AtomicLong r = reserved.remove(auctionId);
+        if (r != null) {
+            free.addAndGet(r.getAndSet(0));
+        }
+    }
+
+    // won at price: the reservation is used up, anything reserved above the price comes back
+    // (no reservation, e.g. a manual bid -> the price is simply taken from the free amount)
+    void commit(String auctionId, double price) {
+        AtomicLong r = reserved.remove(auctionId);
+        long held = r == null ? 0 : r.getAndSet(0);
+        free.addAndGet(held - cents(price));
+    }
+
+    private boolean take(long delta) {
+        if (delta <= 0) {
+            free.addAndGet(-delta);
+            return true;
+        }
+        while (true) {
+            long f = free.get();
+            if (f < delta) return false;
+            if (free.compareAndSet(f, f - delta)) return true;
+        }
+    }
+
+    private static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+}
@@ -18,9 +18,15 @@ public class BuyerAgent extends Agent {
     private Set<String> genrePreferences;
     private Set<String> authorPreferences;
     private BiddingStrategies strategyType;
-    private double remainingBudget;
+    // budget shared by every auction this buyer is in at once (reserve on bid, commit on win, release otherwise)
+    private BudgetLedger ledger;
+    // multiplexed mode: no BiddingAgent per auction, this agent bids itself through one session per auction
+    private boolean multiplexed = false;
+    // own reputation score, pushed by the reputation manager whenever it changes (-1 = not known yet)
+    private int cachedScore = -1;
 
-    private final Map<String, AuctionMetadata> pendingAuctions = new HashMap<>();
+    private final Map<String, AuctionSpec> pendingAuctions = new HashMap<>();
+    private final Map<String, BiddingSession> sessions = new HashMap<>(); // auction id (= conversation id) -> session
 
     protected void setup() {
         Object[] args = getArguments();
@@ -29,10 +35,17 @@ public class BuyerAgent extends Agent {
         authorPreferences = new HashSet<>(Arrays.asList((String[]) args[2]));
         strategyType = (BiddingStrategies) args[3];
         double budget = (double) args[4];
-        remainingBudget = budget;
+        ledger = new BudgetLedger(budget);
+        if (args.length > 5 && args[5] != null) {
+            multiplexed = (Boolean) args[5];
+        }
+
+        Log.info(buyerName, "BIDDER DETAILS - genres: %s | authors: %s | strategy: %s | budget: %.2f%s",
+                genrePreferences, authorPreferences, strategyType, budget, multiplexed ? " | multiplexed" : "");
 
-        System.out.printf("BIDDER DETAILS - [%s] : genres: %s | authors: %s | strategy: %s | budget: %.2f%n",
-                buyerName, genrePreferences, authorPreferences, strategyType, budget);
+        if (multiplexed) {
+            addBehaviour(new SessionDispatcher());
+        }
 
         // subscription to preferred genre/author
         addBehaviour(new OneShotBehaviour() {
@@ -44,6 +57,13 @@ public class BuyerAgent extends Agent {
                 combined.addAll(authorPreferences);
                 sub.setContent(String.join(",", combined));
                 send(sub);
+
+                // get our score pushed on every change -> no query round trip per auction
+                ACLMessage repSub = new ACLMessage(ACLMessage.SUBSCRIBE);
+                repSub.addReceiver(new AID("reputation-manager", AID.ISLOCALNAME));
+                repSub.setOntology("REPUTATION_SUBSCRIBE");
+                repSub.setContent(buyerName);
+                send(repSub);
             }
         });
 
@@ -52,37 +72,43 @@ public class BuyerAgent extends Agent {
             public void action() {
                 ACLMessage msg = receive(MessageTemplate.MatchOntology("AUCTION_ANNOUNCE"));
                 if (msg != null && msg.getOntology().equals("AUCTION_ANNOUNCE")) {
-                    String[] parts = msg.getContent().split(";", 2);
-                    String auctionId = parts[0];
-                    String metadata = parts[1];
-
-                    String genre = extract("Genre=", metadata);
-                    String author = extract("Author=", metadata);
-                    double startPrice = Double.parseDouble(extract("StartingPrice=", metadata));
-                    String type = extract("Type=", metadata);
-                    boolean isDutch = "DUTCH".equalsIgnoreCase(type); // if DUTCH, we have no upper budget limit, this is a toggle for that
+                    AuctionSpec spec;
+                    try {
+                        spec = AuctionCodec.decodeSpec(msg.getByteSequenceContent());
+                    } catch (IllegalArgumentException e) {
+                        Log.error(buyerName, "Failed to decode auction announcement from %s", msg.getSender().getLocalName());
+                        return;
+                    }
+                    String auctionId = spec.auctionId();
+                    boolean isDutch = spec.type() == AuctionType.DUTCH; // if DUTCH, we have no upper budget limit, this is a toggle for that
 
-                    // chec budget + interest
-                    boolean budgetOk   = isDutch || remainingBudget >= startPrice;
-                    int minRating = metadata.contains("MinRating=") ? Integer.parseInt(extract("MinRating=", metadata)) : 0;
+                    // chec budget + interest (what other auctions hold right now is not ours to spend)
+                    boolean budgetOk   = isDutch || ledger.available() >= spec.startingPrice();
 
-                    boolean genreMatch = genrePreferences.contains(genre);
-                    boolean authorMatch = authorPreferences.contains(author);
+                    boolean genreMatch = genrePreferences.contains(spec.genre());
+                    boolean authorMatch = authorPreferences.contains(spec.author());
 
-                    System.out.printf("EVALUATION: [%s] Evaluating auction %s | Genre: %s | Author: %s | Start: %.2f | Budget: %.2f | MinRating: %d%n",
-                            buyerName, auctionId, genre, author, startPrice, remainingBudget, minRating);
+                    if (Log.debugEnabled()) {
+                        Log.debug(buyerName, "EVALUATION: Evaluating auction %s | Genre: %s | Author: %s | Start: %.2f | Budget: %.2f | MinRating: %d",
+                                auctionId, spec.genre(), spec.author(), spec.startingPrice(), ledger.available(), spec.minRating());
+                    }
 
                     if ((genreMatch || authorMatch) && budgetOk) {
-                        pendingAuctions.put(auctionId, new AuctionMetadata(auctionId, metadata, startPrice));
+                        // last check -> reputation ok? answered from the cache when we have a score
+                        if (cachedScore >= 0) {
+                            joinIfReputable(spec, cachedScore);
+                            return;
+                        }
 
-                        // last check -> reputation ok?
+                        // no score pushed yet -> ask once, the answer also fills the cache
+                        pendingAuctions.put(auctionId, spec);
                         ACLMessage query = new ACLMessage(ACLMessage.REQUEST);
                         query.addReceiver(new AID("reputation-manager", AID.ISLOCALNAME));
                         query.setOntology("REPUTATION_QUERY");
                         query.setContent(buyerName);
                         send(query);
-                    } else {
-                        System.out.printf("SKIP: [%s] Skipping auction %s — no interest or budget too low%n", buyerName, auctionId);
+                    } else if (Log.debugEnabled()) {
+                        Log.debug(buyerName, "SKIP: Skipping auction %s — no interest or budget too low", auctionId);
                     }
                 } else {
                     block();
@@ -93,48 +119,15 @@ public class BuyerAgent extends Agent {
         // reputation handling
         addBehaviour(new CyclicBehaviour() {
             public void action() {
-                // get reputation response inform message => handle the reputation update
-                ACLMessage msg = receive(MessageTemplate.MatchOntology("REPUTATION_RESPONSE"));
+                // get reputation response (query answer) or push (score changed) => update the cache
+                ACLMessage msg = receive(MessageTemplate.or(
+                        MessageTemplate.MatchOntology("REPUTATION_RESPONSE"),
+                        MessageTemplate.MatchOntology("REPUTATION_PUSH")
+                ));
                 if (msg != null) {
-                    int score = Integer.parseInt(msg.getContent());
-                    for (String auctionId : pendingAuctions.keySet()) {
-                        AuctionMetadata meta = pendingAuctions.get(auctionId);
-                        int minRating = meta.metadata.contains("MinRating=") ?
-                                Integer.parseInt(extract("MinRating=", meta.metadata)) : 0;
-
-                        // score vs. seller required reputation check
-                        if (score >= minRating) {
-                            System.out.printf("REP CHECK: [%s] Reputation OK (%d >= %d) — joining auction %s%n",
-                                    buyerName, score, minRating, auctionId);
-
-                            Object[] bidArgs = new Object[]{
-                                    auctionId,
-                                    meta.metadata,
-                                    buyerName,
-                                    meta.startPrice,
-                                    strategyType,
-                                    remainingBudget
-                            };
-
-                            // synchronization for agent joining the auction
-                            synchronized(getContainerController()) {
-                                AgentController ac;
-                                try {
-                                    ac = getContainerController()
-                                            .createNewAgent(
-                                                    buyerName + "-bidder-" + auctionId,
-                                                    BiddingAgent.class.getName(),
-                                                    bidArgs
-                                            );
-                                    ac.start();
-                                } catch (StaleProxyException e) {
-                                    throw new RuntimeException(e);
-                                }
-                            }
-                        } else {
-                            System.out.printf("SKIP: [%s] Skipped auction %s — insufficient reputation (%d < %d)%n",
-                                    buyerName, auctionId, score, minRating);
-                        }
+                    cachedScore = Integer.parseInt(msg.getContent());
+                    for (AuctionSpec spec : pendingAuctions.values()) {
+                        joinIfReputable(spec, cachedScore);
                     }
                     pendingAuctions.clear();
                 } else {
@@ -147,15 +140,16 @@ public class BuyerAgent extends Agent {
             public void action() {
                 ACLMessage msg = receive(MessageTemplate.MatchOntology("AUCTION_RESULT"));
                 if (msg != null &&  msg.getOntology().equals("AUCTION_RESULT")) {
-                    String[] parts = msg.getContent().split("at price ");
                     try {
-                        double spent = Double.parseDouble(parts[1]);
-                        remainingBudget -= spent;
-                        String cname = ColorUtil.colorize(buyerName);
-                        System.out.printf("WINNER: [%s] Won auction, spent %.2f, remaining budget: %.2f%n",
-                                cname, spent, remainingBudget);
-                    } catch (Exception e) {
-                        System.err.printf("ERROR: [%s] Failed to parse spending from message: %s%n", buyerName, msg.getContent());
+                        AuctionResult result = AuctionCodec.decodeResult(msg.getByteSequenceContent());
+                        sessions.remove(result.auctionId());
+                        if (buyerName.equals(result.winner())) {
+                            ledger.commit(result.auctionId(), result.price());
+                            Log.info(buyerName, "WINNER: Won auction, spent %.2f, remaining budget: %.2f",
+                                    result.price(), ledger.available());
+                        }
+                    } catch (IllegalArgumentException e) {
+                        Log.error(buyerName, "Failed to decode auction result from %s", msg.getSender().getLocalName());
                     }
                 } else {
                     block();
@@ -164,24 +158,100 @@ public class BuyerAgent extends Agent {
         });
     }
 
-    private String extract(String key, String metadata) {
-        for (String part : metadata.split(";")) {
-            if (part.startsWith(key)) {
-                return part.substring(key.length());
+    // score vs. seller required reputation check, then join (session or spawned BiddingAgent)
+    private void joinIfReputable(AuctionSpec spec, int score) {
+        String auctionId = spec.auctionId();
+        int minRating = spec.minRating();
+        if (score < minRating) {
+            Log.info(buyerName, "SKIP: Skipped auction %s — insufficient reputation (%d < %d)", auctionId, score, minRating);
+            return;
+        }
+        Log.info(buyerName, "REP CHECK: Reputation OK (%d >= %d) — joining auction %s", score, minRating, auctionId);
+
+        if (multiplexed) {
+            BiddingSession session = new BiddingSession(this, spec, buyerName, strategyType, ledger);
+            sessions.put(auctionId, session);
+            session.register();
+            return;
+        }
+
+        Object[] bidArgs = new Object[]{
+                spec,
+                buyerName,
+                strategyType,
+                ledger,
+                System.nanoTime() // spawn time metric
+        };
+
+        // synchronization for agent joining the auction
+        synchronized(getContainerController()) {
+            AgentController ac;
+            try {
+                ac = getContainerController()
+                        .createNewAgent(
+                                buyerName + "-bidder-" + auctionId,
+                                BiddingAgent.class.getName(),
+                                bidArgs
+                        );
+                ac.start();
+            } catch (StaleProxyException e) {
+                throw new RuntimeException(e);
             }
         }
-        return "";
     }
 
-    private static class AuctionMetadata {
-        String auctionId;
-        String metadata;
-        double startPrice;
+    // multiplexed mode: route CFPs (and close / refuse / reject notices) to the session of their auction, drop sessions that are done
+    private class SessionDispatcher extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.or(
+                MessageTemplate.MatchPerformative(ACLMessage.CFP),
+                MessageTemplate.and(
+                        MessageTemplate.or(
+                                MessageTemplate.MatchPerformative(ACLMessage.CANCEL),
+                                MessageTemplate.or(
+                                        MessageTemplate.MatchPerformative(ACLMessage.REFUSE),
+                                        MessageTemplate.MatchPerformative(ACLMessage.REJECT_PROPOSAL)
+                                )
+                        ),
+                        new MessageTemplate((MessageTemplate.MatchExpression) m -> AuctionRouter.isManager(m.getSender()))
+                )
+        );
+
+        public void action() {
+            ACLMessage msg = myAgent.receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
+            String auctionId = msg.getConversationId();
+            BiddingSession session = sessions.get(auctionId);
+            if (session == null) return;
 
-        AuctionMetadata(String auctionId, String metadata, double startPrice) {
-            this.auctionId = auctionId;
-            this.metadata = metadata;
-            this.startPrice = startPrice;
+            if (msg.getPerformative() == ACLMessage.CANCEL) {
+                session.onClosed(msg); // auction is over for us
+            } else if (msg.getPerformative() == ACLMessage.REFUSE) {
+                session.onRefused(msg);
+            } else if (msg.getPerformative() == ACLMessage.REJECT_PROPOSAL) {
+                session.onRejected(msg); // proxy maximum topped / sealed bid refused
+            } else {
+                session.onCfp(msg);
+            }
+            if (session.isFinished()) {
+                sessions.remove(auctionId);
+            }
         }
     }
+
+    // stop receiving announcements and score pushes when the buyer leaves the platform
+    @Override
+    protected void takeDown() {
+        ACLMessage unsub = new ACLMessage(ACLMessage.CANCEL);
+        unsub.addReceiver(new AID("notification", AID.ISLOCALNAME));
+        send(unsub);
+
+        ACLMessage repUnsub = new ACLMessage(ACLMessage.CANCEL);
+        repUnsub.addReceiver(new AID("reputation-manager", AID.ISLOCALNAME));
+        repUnsub.setOntology("REPUTATION_SUBSCRIBE");
+        repUnsub.setContent(buyerName);
+        send(repUnsub);
+    }
 }
@@ -1,8 +1,8 @@
 package Auction;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 // this is used to color
 public class ColorUtil {
@@ -19,7 +19,7 @@ public class ColorUtil {
             "\u001B[95m", // Bright Magenta
     };
 
-    private static final Map<String, String> colorMap = new HashMap<>();
+    private static final Map<String, String> colorMap = new ConcurrentHashMap<>(); // any thread may colorize
     private static final Random rand = new Random();
 
     public static String colorize(String name) {
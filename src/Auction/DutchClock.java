@@ -0,0 +1,90 @@
+package Auction;
+
+import jade.core.AID;
+
+import java.util.*;
+
+// price curve + tick rate of the DUTCH clock, shared by all Dutch auctions of a manager
+// -Dauction.dutch.curve=PERCENTAGE|LINEAR|STEPPED (default PERCENTAGE), -Dauction.dutch.tick=<ms> (default 100),
+// -Dauction.dutch.step=<fraction> (default 0.01), -Dauction.dutch.stepTicks=<n> (STEPPED only, default 5),
+// -Dauction.dutch.floor=<fraction of the starting price> (default 0.1, never below 1) -> unsold once the clock gets there
+record DutchClock(Curve curve, long tickMillis, double step, int stepTicks, double floor) {
+
+    enum Curve {
+        LINEAR,      // step * starting price off every tick
+        PERCENTAGE,  // step * current price off every tick -> slows down towards the floor
+        STEPPED      // step * starting price off every stepTicks ticks, the price holds in between
+    }
+
+    DutchClock {
+        if (tickMillis < 1 || step <= 0 || step >= 1 || stepTicks < 1 || floor < 0 || floor >= 1) {
+            throw new IllegalArgumentException("Invalid Dutch clock: tick=" + tickMillis + "ms step=" + step
+                    + " stepTicks=" + stepTicks + " floor=" + floor);
+        }
+    }
+
+    static DutchClock fromSystemProperties() {
+        return new DutchClock(
+                Curve.valueOf(System.getProperty("auction.dutch.curve", "PERCENTAGE").toUpperCase()),
+                Long.getLong("auction.dutch.tick", 100),
+                Double.parseDouble(System.getProperty("auction.dutch.step", "0.01")),
+                Integer.getInteger("auction.dutch.stepTicks", 5),
+                Double.parseDouble(System.getProperty("auction.dutch.floor", "0.1")));
+    }
+
+    // lowest price the clock calls
+    double floorPrice(double startingPrice) {
+        return Math.max(1, startingPrice * floor);
+    }
+
+    // price after the given tick (1 = first tick after the opening price)
+    double next(double price, double startingPrice, int tick) {
+        double p = switch (curve) {
+            case LINEAR -> price - startingPrice * step;
+            case PERCENTAGE -> price - price * step;
+            case STEPPED -> tick % stepTicks == 0 ? price - startingPrice * step : price;
+        };
+        return Math.max(p, floorPrice(startingPrice));
+    }
+}
+
+// acceptance thresholds DUTCH bidders sealed when they registered, highest first (ties: lower bidder name)
+// -> the manager accepts on their behalf, no CFP/PROPOSE per tick for them
+final class DutchThresholds {
+
+    record Entry(AID bidder, double limit) {}
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingDouble(Entry::limit).reversed().thenComparing(e -> e.bidder().getName());
+
+    private final NavigableSet<Entry> sorted = new TreeSet<>(ORDER);
+    private final Map<AID, Entry> byBidder = new HashMap<>();
+
+    // a bidder registering again replaces its threshold
+    void put(AID bidder, double limit) {
+        Entry e = new Entry(bidder, limit);
+        Entry old = byBidder.put(bidder, e);
+        if (old != null) sorted.remove(old);
+        sorted.add(e);
+    }
+
+    void remove(AID bidder) {
+        Entry old = byBidder.remove(bidder);
+        if (old != null) sorted.remove(old);
+    }
+
+    boolean contains(AID bidder) {
+        return byBidder.containsKey(bidder);
+    }
+
+    boolean isEmpty() {
+        return byBidder.isEmpty();
+    }
+
+    // best threshold that takes the called price, null if none does
+    Entry taker(double price) {
+        if (sorted.isEmpty()) return null;
+        Entry top = sorted.first();
+        return top.limit() >= price ? top : null;
+    }
+}
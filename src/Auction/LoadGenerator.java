@@ -0,0 +1,253 @@
+package Auction;
+
+import jade.core.Agent;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.TickerBehaviour;
+import jade.core.behaviours.WakerBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.wrapper.ContainerController;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// headless simulation (BootAgent --load <config>): no GUIs, thousands of synthetic buyers, sellers submitting
+// auctions at a target rate, and a throughput/latency report at the end. Config is a properties file, see load.properties
+class LoadGenerator {
+
+    // filled by the agents of the run, read by the report
+    static final AtomicLong auctionsSubmitted = new AtomicLong();
+    static final ConcurrentLinkedQueue<Long> latenciesMicros = new ConcurrentLinkedQueue<>(); // submit -> result
+    private static CountDownLatch buyersReady;
+
+    static void run(String configFile) throws Exception {
+        Properties cfg = new Properties();
+        try (Reader in = new FileReader(configFile)) {
+            cfg.load(in);
+        }
+        int buyers = Integer.parseInt(cfg.getProperty("buyers", "1000"));
+        int sellers = Integer.parseInt(cfg.getProperty("sellers", "10"));
+        double rate = Double.parseDouble(cfg.getProperty("auctionsPerSecond", "5"));
+        int duration = Integer.parseInt(cfg.getProperty("durationSeconds", "60"));
+        int drain = Integer.parseInt(cfg.getProperty("drainSeconds", "60"));
+        int maxConcurrent = Integer.parseInt(cfg.getProperty("maxConcurrentAuctions", "50"));
+        boolean multiplexed = Boolean.parseBoolean(cfg.getProperty("multiplexed", "true"));
+        String[] genres = list(cfg, "genres", "Fantasy,Sci-Fi,Comedy,Adventure,Romance,Horror,Mystery");
+        String[] authors = list(cfg, "authors", "Tolkien,Asimov,Mark Twain,Stephen King,Jane Austen,George Orwell");
+        String[] types = list(cfg, "types", "ENGLISH,DUTCH,BLIND");
+        double minBudget = Double.parseDouble(cfg.getProperty("minBudget", "1000"));
+        double maxBudget = Double.parseDouble(cfg.getProperty("maxBudget", "3000"));
+        double minPrice = Double.parseDouble(cfg.getProperty("minStartingPrice", "500"));
+        double maxPrice = Double.parseDouble(cfg.getProperty("maxStartingPrice", "1500"));
+        long seed = Long.parseLong(cfg.getProperty("seed", "42"));
+        String reputationDir = cfg.getProperty("reputationDir", "data/load-reputation");
+        // read by AuctionRouter/BiddingSession, has to be set before the managers and the first buyer start
+        if (cfg.getProperty("shards") != null) {
+            System.setProperty("auction.shards", cfg.getProperty("shards"));
+        }
+        if (cfg.getProperty("sealedDutchThresholds") != null) {
+            System.setProperty("auction.dutch.thresholds", cfg.getProperty("sealedDutchThresholds"));
+        }
+        if (cfg.getProperty("proxyEnglishBids") != null) {
+            System.setProperty("auction.english.proxy", cfg.getProperty("proxyEnglishBids"));
+        }
+        if (cfg.getProperty("queueCapacity") != null) {
+            System.setProperty("auction.queue.capacity", cfg.getProperty("queueCapacity"));
+        }
+        // own journal, and every run starts empty instead of resuming the auctions the last one left open
+        System.setProperty("auction.journal.dir", cfg.getProperty("journalDir", "data/load-journal"));
+        System.setProperty("auction.journal.recover", "false");
+
+        // thousands of agents logging would only measure the console -> only warnings + the report
+        PrintStream report = System.out;
+        if (Boolean.parseBoolean(cfg.getProperty("quiet", "true"))) {
+            Log.setLevel(Log.Level.WARN);
+        }
+
+        Random random = new Random(seed);
+        Runtime runtime = Runtime.instance();
+        ContainerController container = runtime.createMainContainer(new ProfileImpl());
+        AuctionRouter.startShards(container, new Object[]{maxConcurrent});
+        container.createNewAgent("notification", NotificationAgent.class.getName(), null).start();
+        container.createNewAgent("reputation-manager", ReputationManagerAgent.class.getName(), new Object[]{reputationDir}).start();
+
+        // buyers with random interests, strategies and budgets; sellers only start once every buyer ran its setup
+        buyersReady = new CountDownLatch(buyers);
+        BiddingStrategies[] strategies = BiddingStrategies.values();
+        for (int i = 1; i <= buyers; i++) {
+            String name = "buyer" + i;
+            String[] g = pick(random, genres, 1 + random.nextInt(2));
+            String[] a = pick(random, authors, 1 + random.nextInt(2));
+            double budget = minBudget + random.nextDouble() * (maxBudget - minBudget);
+            container.createNewAgent(name, LoadBuyer.class.getName(), new Object[]{
+                    name, g, a, strategies[random.nextInt(strategies.length)], budget, multiplexed}).start();
+        }
+        if (!buyersReady.await(5, TimeUnit.MINUTES)) {
+            report.printf("Only %d of %d buyers started, giving up%n", buyers - buyersReady.getCount(), buyers);
+            container.kill();
+            return;
+        }
+        report.printf("%d buyers up, starting %d sellers at %.1f auctions/s for %d s%n", buyers, sellers, rate, duration);
+
+        long start = System.nanoTime();
+        long sellUntil = System.currentTimeMillis() + duration * 1000L;
+        long period = Math.max(1, Math.round(sellers * 1000 / rate)); // each seller's share of the target rate
+        for (int i = 1; i <= sellers; i++) {
+            container.createNewAgent("seller" + i, LoadSeller.class.getName(), new Object[]{
+                    period, sellUntil, seed + i, genres, authors, types, minPrice, maxPrice}).start();
+        }
+
+        // selling phase, then wait for the auctions still running
+        Thread.sleep(duration * 1000L);
+        long drainUntil = System.currentTimeMillis() + drain * 1000L;
+        while (latenciesMicros.size() < auctionsSubmitted.get() && System.currentTimeMillis() < drainUntil) {
+            Thread.sleep(200);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        printReport(report, elapsed);
+        container.kill();
+        System.exit(0);
+    }
+
+    private static void printReport(PrintStream out, double elapsedSeconds) {
+        long submitted = auctionsSubmitted.get();
+        long[] lat = latenciesMicros.stream().mapToLong(Long::longValue).sorted().toArray();
+        long bids = Metrics.bidsPlaced.sum();
+
+        out.println("=== Load run ===");
+        out.printf("elapsed              %.1f s%n", elapsedSeconds);
+        out.printf("auctions submitted   %d%n", submitted);
+        out.printf("auctions closed      %d (%d still open)%n", lat.length, submitted - lat.length);
+        out.printf("closed / s           %.2f%n", lat.length / elapsedSeconds);
+        out.printf("bids / s             %.2f (%d bids)%n", bids / elapsedSeconds, bids);
+        out.printf("cfps sent            %d%n", Metrics.cfpsSent.sum());
+        out.printf("outbid notices       %d%n", Metrics.outbidSent.sum());
+        out.printf("auctions refused     %d (resubmitted after the retry hint)%n", Metrics.auctionsRefused.sum());
+        out.printf("queue wait ms        %s%n", Metrics.queueWait.summary());
+        if (lat.length > 0) {
+            out.printf("latency submit->result ms: p50 %.1f | p90 %.1f | p99 %.1f | max %.1f%n",
+                    percentile(lat, 0.50), percentile(lat, 0.90), percentile(lat, 0.99), lat[lat.length - 1] / 1000.0);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, idx)] / 1000.0;
+    }
+
+    private static String[] list(Properties cfg, String key, String def) {
+        return Arrays.stream(cfg.getProperty(key, def).split(",")).map(String::trim).toArray(String[]::new);
+    }
+
+    // n distinct random entries
+    private static String[] pick(Random random, String[] from, int n) {
+        List<String> copy = new ArrayList<>(Arrays.asList(from));
+        Collections.shuffle(copy, random);
+        return copy.subList(0, Math.min(n, copy.size())).toArray(new String[0]);
+    }
+
+    // normal BuyerAgent that reports when its setup is done
+    public static class LoadBuyer extends BuyerAgent {
+        @Override
+        protected void setup() {
+            super.setup();
+            buyersReady.countDown();
+        }
+    }
+
+    // submits one random auction per tick until the end of the selling phase, times every auction until its result
+    public static class LoadSeller extends Agent {
+        private final Map<String, Long> submittedAt = new HashMap<>(); // title -> nanoTime of the request
+        private int counter = 0;
+
+        @Override
+        protected void setup() {
+            Object[] args = getArguments();
+            long period = (long) args[0];
+            long sellUntil = (long) args[1];
+            Random random = new Random((long) args[2]);
+            String[] genres = (String[]) args[3];
+            String[] authors = (String[]) args[4];
+            String[] types = (String[]) args[5];
+            double minPrice = (double) args[6];
+            double maxPrice = (double) args[7];
+
+            addBehaviour(new TickerBehaviour(this, period) {
+                protected void onTick() {
+                    if (System.currentTimeMillis() >= sellUntil) {
+                        stop();
+                        return;
+                    }
+                    String title = getLocalName() + "#" + (++counter);
+                    AuctionSpec spec = new AuctionSpec(null, title,
+                            authors[random.nextInt(authors.length)], genres[random.nextInt(genres.length)],
+                            AuctionType.valueOf(types[random.nextInt(types.length)]),
+                            Math.round(minPrice + random.nextDouble() * (maxPrice - minPrice)), 0);
+
+                    submittedAt.put(title, System.nanoTime());
+                    submit(spec);
+                    auctionsSubmitted.incrementAndGet();
+                }
+            });
+
+            // full queue -> the same request again once the manager says so (the latency keeps counting)
+            addBehaviour(new CyclicBehaviour() {
+                public void action() {
+                    ACLMessage msg = receive(MessageTemplate.and(
+                            MessageTemplate.MatchPerformative(ACLMessage.REFUSE), MessageTemplate.MatchOntology("NEW_AUCTION")));
+                    if (msg != null) {
+                        AuctionSpec spec;
+                        try {
+                            spec = AuctionCodec.decodeSpec(msg.getByteSequenceContent());
+                        } catch (IllegalArgumentException e) {
+                            return;
+                        }
+                        long delay = Long.parseLong(msg.getUserDefinedParameter("retry-after"));
+                        addBehaviour(new WakerBehaviour(myAgent, delay) {
+                            protected void onWake() {
+                                submit(spec);
+                            }
+                        });
+                    } else {
+                        block();
+                    }
+                }
+            });
+
+            addBehaviour(new CyclicBehaviour() {
+                public void action() {
+                    ACLMessage msg = receive(MessageTemplate.MatchOntology("AUCTION_RESULT"));
+                    if (msg != null) {
+                        AuctionResult result;
+                        try {
+                            result = AuctionCodec.decodeResult(msg.getByteSequenceContent());
+                        } catch (IllegalArgumentException e) {
+                            return;
+                        }
+                        Long at = submittedAt.remove(result.title());
+                        if (at != null) {
+                            latenciesMicros.add((System.nanoTime() - at) / 1000);
+                        }
+                    } else {
+                        block();
+                    }
+                }
+            });
+        }
+
+        private void submit(AuctionSpec spec) {
+            ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+            msg.addReceiver(AuctionRouter.managerFor(spec));
+            msg.setOntology("NEW_AUCTION");
+            msg.setByteSequenceContent(AuctionCodec.encode(spec));
+            send(msg);
+        }
+    }
+}
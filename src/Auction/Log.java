@@ -0,0 +1,196 @@
+package Auction;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// leveled event log: callers only enqueue (format string + args), a background thread formats and writes
+// - bounded buffer, a full buffer drops events (and says how many) instead of stalling agents
+// - below the level nothing is enqueued; hot paths check debugEnabled() first so even the args aren't boxed
+// - sinks: console (colored sources, optional) and a plain file
+// -Dauction.log.level=DEBUG|INFO|WARN|ERROR|OFF (default INFO), -Dauction.log.color=false, -Dauction.log.file=<path>
+final class Log {
+
+    enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    // one log call; args are formatted later on the writer thread, so only pass values that don't change afterwards
+    record Event(long time, Level level, String source, String format, Object[] args) {
+
+        String message() {
+            if (args.length == 0) return format;
+            try {
+                return String.format(format, args);
+            } catch (IllegalFormatException e) {
+                return format + " " + java.util.Arrays.toString(args);
+            }
+        }
+    }
+
+    interface Sink {
+        void write(Event e, String message) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static volatile Level level = Level.valueOf(System.getProperty("auction.log.level", "INFO").toUpperCase());
+    private static final BlockingQueue<Event> buffer =
+            new ArrayBlockingQueue<>(Integer.getInteger("auction.log.buffer", 64 * 1024));
+    private static final LongAdder dropped = new LongAdder();
+    private static final List<Sink> sinks = new ArrayList<>();
+    private static volatile boolean running = true;
+    private static final Thread writer;
+
+    static {
+        sinks.add(new ConsoleSink(Boolean.parseBoolean(System.getProperty("auction.log.color", "true"))));
+        String file = System.getProperty("auction.log.file");
+        if (file != null) {
+            try {
+                sinks.add(new FileSink(file));
+            } catch (IOException e) {
+                System.err.println("[Log] Cannot open log file " + file + ": " + e.getMessage());
+            }
+        }
+        writer = new Thread(Log::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // whatever is still buffered goes out before the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            running = false;
+            try {
+                writer.join(2000);
+            } catch (InterruptedException ignored) {}
+        }, "log-flush"));
+    }
+
+    private Log() {}
+
+    static void setLevel(Level l) {
+        level = l;
+    }
+
+    static boolean enabled(Level l) {
+        return l.ordinal() >= level.ordinal();
+    }
+
+    static boolean debugEnabled() {
+        return level == Level.DEBUG;
+    }
+
+    static void debug(String source, String format, Object... args) {
+        log(Level.DEBUG, source, format, args);
+    }
+
+    static void info(String source, String format, Object... args) {
+        log(Level.INFO, source, format, args);
+    }
+
+    static void warn(String source, String format, Object... args) {
+        log(Level.WARN, source, format, args);
+    }
+
+    static void error(String source, String format, Object... args) {
+        log(Level.ERROR, source, format, args);
+    }
+
+    private static void log(Level l, String source, String format, Object[] args) {
+        if (!enabled(l)) return;
+        if (!buffer.offer(new Event(System.currentTimeMillis(), l, source, format, args))) {
+            dropped.increment();
+        }
+    }
+
+    // === writer thread ===
+
+    private static void writeLoop() {
+        List<Event> batch = new ArrayList<>();
+        while (running || !buffer.isEmpty()) {
+            try {
+                Event first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            buffer.drainTo(batch);
+            long lost = dropped.sumThenReset();
+            if (lost > 0) {
+                batch.add(new Event(System.currentTimeMillis(), Level.WARN, "Log", "%d log events dropped (buffer full)", new Object[]{lost}));
+            }
+            for (Event e : batch) {
+                String message = e.message();
+                for (Sink s : sinks) {
+                    try {
+                        s.write(e, message);
+                    } catch (IOException ex) {
+                        System.err.println("[Log] Sink failed: " + ex.getMessage());
+                    }
+                }
+            }
+            batch.clear();
+            for (Sink s : sinks) {
+                try {
+                    s.flush();
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    // the old console look: "[source] message", sources colored per name; WARN/ERROR go to stderr
+    private static class ConsoleSink implements Sink {
+        private final boolean colored;
+        private final StringBuilder line = new StringBuilder();
+
+        ConsoleSink(boolean colored) {
+            this.colored = colored;
+        }
+
+        public void write(Event e, String message) {
+            line.setLength(0);
+            if (e.source() != null) {
+                line.append('[').append(colored ? ColorUtil.colorize(e.source()) : e.source()).append("] ");
+            }
+            line.append(message);
+            (e.level().ordinal() >= Level.WARN.ordinal() ? System.err : System.out).println(line);
+        }
+
+        public void flush() {
+            System.out.flush();
+        }
+    }
+
+    // "2026-01-31T12:00:00.123 INFO  [source] message", no colors
+    private static class FileSink implements Sink {
+        private static final DateTimeFormatter TIME =
+                DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+        private final Writer out;
+
+        FileSink(String path) throws IOException {
+            out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path, true), StandardCharsets.UTF_8));
+        }
+
+        public void write(Event e, String message) throws IOException {
+            out.write(TIME.format(Instant.ofEpochMilli(e.time())));
+            out.write(' ');
+            out.write(String.format("%-5s", e.level()));
+            if (e.source() != null) {
+                out.write(" [" + e.source() + "]");
+            }
+            out.write(' ');
+            out.write(message);
+            out.write('\n');
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package Auction;
+
+import jade.core.Agent;
+
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// process-wide counters, gauges and histograms of the platform, exposed over JMX and written to a snapshot file
+// recording never allocates or locks: LongAdders and striped histograms only
+// -Dauction.metrics.file=<path> (default data/metrics.txt), -Dauction.metrics.interval=<seconds> (default 10, 0 = off)
+final class Metrics {
+
+    // gauges summed over all manager shards, each shard adds its own changes
+    static final AtomicInteger activeAuctions = new AtomicInteger();
+    static final AtomicInteger queuedAuctions = new AtomicInteger();
+    static final AtomicInteger scheduledAuctions = new AtomicInteger(); // waiting for their start time
+
+    static final LongAdder bidsPlaced = new LongAdder();   // sent by the bidding sessions (proposals, sealed thresholds / maxima)
+    static final LongAdder bidsAccepted = new LongAdder();
+    static final LongAdder bidsRejected = new LongAdder(); // unknown/closed auction, unregistered sender, late or malformed
+    static final LongAdder cfpsSent = new LongAdder();
+    static final LongAdder outbidSent = new LongAdder();      // OUTBID notices to English proxy bidders
+    static final LongAdder auctionsRefused = new LongAdder(); // NEW_AUCTION refused by a full queue
+
+    private static final Histogram[] roundDuration = new Histogram[AuctionType.values().length];
+    static final Histogram cfpToPropose = new Histogram(8);  // all bidders together
+    static final Histogram spawnTime = new Histogram(8);     // BuyerAgent createNewAgent -> BiddingAgent setup
+    static final Histogram queueWait = new Histogram(4);     // queued NEW_AUCTION -> started, per shard manager
+    static final Histogram journalFlush = new Histogram(4);  // write + fsync of one journal batch, per shard writer
+    static final LongAdder journalEvents = new LongAdder();
+    static final LongAccumulator journalRecovery = new LongAccumulator(Math::max, 0); // ms, slowest shard
+    private static final Map<String, Histogram> bidderLatency = new ConcurrentHashMap<>();
+    private static final Map<String, Agent> inboxes = new ConcurrentHashMap<>();
+
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    static {
+        for (int i = 0; i < roundDuration.length; i++) {
+            roundDuration[i] = new Histogram(1); // only the manager records rounds
+        }
+    }
+
+    private Metrics() {}
+
+    static Histogram roundDuration(AuctionType type) {
+        return roundDuration[type.ordinal()];
+    }
+
+    // one small histogram per buyer; callers keep the reference so the lookup happens once per session
+    static Histogram bidderLatency(String buyer) {
+        return bidderLatency.computeIfAbsent(buyer, _ -> new Histogram(1));
+    }
+
+    // inbox depth of the agent is reported under its local name
+    static void watchInbox(Agent agent) {
+        inboxes.put(agent.getLocalName(), agent);
+    }
+
+    static int inboxDepth(String agentName) {
+        Agent a = inboxes.get(agentName);
+        return a == null ? -1 : a.getCurQueueSize();
+    }
+
+    // registers the MBean and starts the snapshot writer, once per JVM
+    static void start() {
+        if (!started.compareAndSet(false, true)) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(new Bean(), AuctionMetricsMBean.class),
+                    new ObjectName("Auction:type=Metrics"));
+        } catch (Exception e) {
+            Log.warn("Metrics", "JMX registration failed: %s", e.getMessage());
+        }
+
+        long interval = Long.getLong("auction.metrics.interval", 10);
+        if (interval <= 0) return;
+        Path file = Path.of(System.getProperty("auction.metrics.file", "data/metrics.txt"));
+        ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-snapshot");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleAtFixedRate(() -> writeSnapshot(file), interval, interval, TimeUnit.SECONDS);
+    }
+
+    // whole file replaced at once -> readers never see half a snapshot
+    private static void writeSnapshot(Path file) {
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, snapshot());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.warn("Metrics", "Snapshot failed: %s", e.getMessage());
+        }
+    }
+
+    static String snapshot() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("timestamp ").append(System.currentTimeMillis()).append('\n');
+        sb.append("auctions.active ").append(activeAuctions.get()).append('\n');
+        sb.append("auctions.queued ").append(queuedAuctions.get()).append('\n');
+        sb.append("auctions.scheduled ").append(scheduledAuctions.get()).append('\n');
+        sb.append("auctions.refused ").append(auctionsRefused.sum()).append('\n');
+        sb.append("queue.wait ").append(queueWait.summary()).append('\n');
+        sb.append("bids.placed ").append(bidsPlaced.sum()).append('\n');
+        sb.append("bids.accepted ").append(bidsAccepted.sum()).append('\n');
+        sb.append("bids.rejected ").append(bidsRejected.sum()).append('\n');
+        sb.append("cfps.sent ").append(cfpsSent.sum()).append('\n');
+        sb.append("proxy.outbid ").append(outbidSent.sum()).append('\n');
+        for (AuctionType type : AuctionType.values()) {
+            sb.append("round.duration.").append(type).append(' ').append(roundDuration(type).summary()).append('\n');
+        }
+        sb.append("cfp.propose.latency ").append(cfpToPropose.summary()).append('\n');
+        sb.append("bidder.spawn.time ").append(spawnTime.summary()).append('\n');
+        sb.append("journal.events ").append(journalEvents.sum()).append('\n');
+        sb.append("journal.flush ").append(journalFlush.summary()).append('\n');
+        sb.append("journal.recovery.ms ").append(journalRecovery.get()).append('\n');
+        for (String agent : new TreeSet<>(inboxes.keySet())) {
+            sb.append("inbox.").append(agent).append(' ').append(inboxDepth(agent)).append('\n');
+        }
+        for (String buyer : new TreeSet<>(bidderLatency.keySet())) {
+            sb.append("cfp.propose.latency.").append(buyer).append(' ').append(bidderLatency.get(buyer).summary()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // wrapped in a StandardMBean: the class name doesn't follow the <Class>MBean naming rule
+    private static class Bean implements AuctionMetricsMBean {
+        public int getActiveAuctions() { return activeAuctions.get(); }
+        public int getQueuedAuctions() { return queuedAuctions.get(); }
+        public int getScheduledAuctions() { return scheduledAuctions.get(); }
+        public long getRefusedAuctions() { return auctionsRefused.sum(); }
+        public String getQueueWait() { return queueWait.summary(); }
+        public long getBidsPlaced() { return bidsPlaced.sum(); }
+        public long getBidsAccepted() { return bidsAccepted.sum(); }
+        public long getBidsRejected() { return bidsRejected.sum(); }
+        public long getCfpsSent() { return cfpsSent.sum(); }
+        public long getOutbidSent() { return outbidSent.sum(); }
+        public String getEnglishRoundDuration() { return roundDuration(AuctionType.ENGLISH).summary(); }
+        public String getDutchRoundDuration() { return roundDuration(AuctionType.DUTCH).summary(); }
+        public String getBlindRoundDuration() { return roundDuration(AuctionType.BLIND).summary(); }
+        public String getCfpToProposeLatency() { return cfpToPropose.summary(); }
+        public String getBiddingAgentSpawnTime() { return spawnTime.summary(); }
+        public long getJournalEvents() { return journalEvents.sum(); }
+        public String getJournalFlush() { return journalFlush.summary(); }
+        public long getJournalRecoveryMillis() { return journalRecovery.get(); }
+        public int getManagerInboxDepth() {
+            int total = 0;
+            for (int i = 0; i < AuctionRouter.shards(); i++) {
+                total += Math.max(0, inboxDepth(AuctionRouter.managerName(i)));
+            }
+            return total;
+        }
+        public int getNotificationInboxDepth() { return inboxDepth("notification"); }
+        public int getReputationInboxDepth() { return inboxDepth("reputation-manager"); }
+
+        public String bidderLatency(String buyer) {
+            Histogram h = Metrics.bidderLatency.get(buyer);
+            return h == null ? "unknown buyer" : h.summary();
+        }
+    }
+}
+
+// log-linear histogram of microsecond values (8 sub-buckets per power of two -> ~12% precision, up to ~2 h)
+// recording = a few shifts + one atomic add in the calling thread's stripe, no allocation, no lock
+final class Histogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_EXP = 32;
+    private static final long MAX_VALUE = (1L << (MAX_EXP + 1)) - 1;
+    private static final int BUCKETS = (MAX_EXP - SUB_BITS + 2) * SUB;
+
+    private final int stripeMask;
+    private final AtomicLongArray counts;
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    // stripes: power of two, 1 for histograms only one thread writes to
+    Histogram(int stripes) {
+        this.stripeMask = stripes - 1;
+        this.counts = new AtomicLongArray(stripes * BUCKETS);
+    }
+
+    void record(long micros) {
+        long v = Math.min(Math.max(micros, 0), MAX_VALUE);
+        int stripe = (int) Thread.currentThread().threadId() & stripeMask;
+        counts.incrementAndGet(stripe * BUCKETS + bucket(v));
+        max.accumulate(v);
+    }
+
+    void recordSince(long startNanos) {
+        record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    private static int bucket(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB - 1);
+        return (exp - SUB_BITS + 1) * SUB + sub;
+    }
+
+    // highest value that falls into the bucket
+    private static long upperBound(int bucket) {
+        if (bucket < SUB) return bucket;
+        int shift = bucket / SUB - 1;
+        return ((long) (SUB + bucket % SUB) << shift) + (1L << shift) - 1;
+    }
+
+    // "n=.. p50=.. p90=.. p99=.. max=.. ms"
+    String summary() {
+        long[] merged = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            long c = counts.get(i);
+            merged[i % BUCKETS] += c;
+            n += c;
+        }
+        if (n == 0) return "n=0";
+        long top = max.get();
+        return String.format(Locale.ROOT, "n=%d p50=%.2f p90=%.2f p99=%.2f max=%.2f ms", n,
+                percentile(merged, n, 0.50, top), percentile(merged, n, 0.90, top), percentile(merged, n, 0.99, top),
+                top / 1000.0);
+    }
+
+    // bucket bound, but never above the real maximum
+    private static double percentile(long[] merged, long n, double p, long max) {
+        long rank = (long) Math.ceil(p * n);
+        long seen = 0;
+        for (int b = 0; b < merged.length; b++) {
+            seen += merged[b];
+            if (seen >= rank) return Math.min(upperBound(b), max) / 1000.0;
+        }
+        return max / 1000.0;
+    }
+}
@@ -6,12 +6,16 @@ import jade.core.behaviours.CyclicBehaviour;
 import jade.lang.acl.ACLMessage;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 
 public class NotificationAgent extends Agent {
-    // Map of buyer name → subscribed keywords (genres + authors)
+    // Map of buyer name → subscribed keywords (genres + authors), needed to undo a subscription
     private final Map<String, Set<String>> subs = new HashMap<>();
+    // inverted index keyword → buyers, so an announcement only touches the buyers that match
+    private final Map<String, Set<String>> subscribersByKeyword = new HashMap<>();
 
     protected void setup() {
+        Metrics.watchInbox(this);
         addBehaviour(new CyclicBehaviour() {
             public void action() {
                 ACLMessage msg = receive();
@@ -25,41 +29,52 @@ public class NotificationAgent extends Agent {
                         if (senderName.contains("-bidder-")) return;
 
                         String[] interests = msg.getContent().split(",");
-                        subs.put(senderName, new HashSet<>(Arrays.asList(interests)));
+                        unsubscribe(senderName); // a new subscription replaces the old one
+                        subscribe(senderName, new HashSet<>(Arrays.asList(interests)));
 
-                        System.out.printf("[NotificationAgent] SUBSCRIPTION: %s subscribed to: %s%n", senderName, subs.get(senderName));
+                        Log.info(getLocalName(), "SUBSCRIPTION: %s subscribed to: %s", senderName, subs.get(senderName));
+                    }
+
+                    // buyer is gone / not interested anymore
+                    else if (msg.getPerformative() == ACLMessage.CANCEL) {
+                        String senderName = msg.getSender().getLocalName();
+                        if (unsubscribe(senderName)) {
+                            Log.info(getLocalName(), "UNSUBSCRIBE: %s", senderName);
+                        }
                     }
 
                     // handle new auctions
                     else if (msg.getPerformative() == ACLMessage.INFORM &&
                             "AUCTION_ANNOUNCE".equals(msg.getOntology())) {
 
-                        // get genre,author and anounce new auction
-                        String genre = "", author = "";
-                        for (String part : msg.getContent().split(";")) {
-                            if (part.startsWith("Genre=")) genre = part.substring(6);
-                            if (part.startsWith("Author=")) author = part.substring(7);
+                        // get genre,author and anounce new auction (decoded once, forwarded as is)
+                        AuctionSpec spec;
+                        try {
+                            spec = AuctionCodec.decodeSpec(msg.getByteSequenceContent());
+                        } catch (IllegalArgumentException e) {
+                            Log.warn(getLocalName(), "Invalid announcement from %s: %s", msg.getSender().getLocalName(), e.getMessage());
+                            return;
                         }
+                        String genre = spec.genre(), author = spec.author();
 
-                        System.out.printf("[NotificationAgent] ALERT: New auction — Genre: %s | Author: %s — notifying buyers%n", genre, author);
-
-                        // alert ONLY the interested buyers by looking if at least one of the genre or the author match
-                        for (String buyer : subs.keySet()) {
-                            Set<String> interests = subs.get(buyer);
-
-                            boolean genreMatch = interests.contains(genre);
-                            boolean authorMatch = interests.contains(author);
-
-                            if (genreMatch || authorMatch) {
-                                ACLMessage inf = new ACLMessage(ACLMessage.INFORM);
-                                inf.addReceiver(new AID(buyer, AID.ISLOCALNAME));
-                                inf.setOntology("AUCTION_ANNOUNCE");
-                                inf.setContent(msg.getContent());
-                                send(inf);
+                        boolean debug = Log.debugEnabled();
+                        if (debug) {
+                            Log.debug(getLocalName(), "ALERT: New auction — Genre: %s | Author: %s — notifying buyers", genre, author);
+                        }
 
-                                String reason = genreMatch ? "genre" : "author";
-                                System.out.printf("NOTIFICATION: Notified %s (match: %s)%n", buyer, reason);
+                        // alert ONLY the interested buyers, one message for all of them
+                        ACLMessage inf = new ACLMessage(ACLMessage.INFORM);
+                        inf.setOntology("AUCTION_ANNOUNCE");
+                        inf.setConversationId(spec.auctionId());
+                        inf.setByteSequenceContent(msg.getByteSequenceContent());
+                        int matched = forEachMatch(genre, author, (buyer, match) -> {
+                            inf.addReceiver(new AID(buyer, AID.ISLOCALNAME));
+                            if (debug) {
+                                Log.debug(getLocalName(), "NOTIFICATION: Notified %s (match: %s)", buyer, match);
                             }
+                        });
+                        if (matched > 0) {
+                            send(inf);
                         }
                     }
 
@@ -69,4 +84,43 @@ public class NotificationAgent extends Agent {
             }
         });
     }
+
+    // look up who follows the genre or the author, every buyer once ("genre" wins if both match)
+    int forEachMatch(String genre, String author, BiConsumer<String, String> action) {
+        Set<String> byGenre = subscribersByKeyword.getOrDefault(genre, Collections.emptySet());
+        Set<String> byAuthor = subscribersByKeyword.getOrDefault(author, Collections.emptySet());
+        int matched = 0;
+        for (String buyer : byGenre) {
+            action.accept(buyer, "genre");
+            matched++;
+        }
+        for (String buyer : byAuthor) {
+            if (byGenre.contains(buyer)) continue; // already in there
+            action.accept(buyer, "author");
+            matched++;
+        }
+        return matched;
+    }
+
+    void subscribe(String buyer, Set<String> interests) {
+        subs.put(buyer, interests);
+        for (String keyword : interests) {
+            subscribersByKeyword.computeIfAbsent(keyword, _ -> new HashSet<>()).add(buyer);
+        }
+    }
+
+    // removes the buyer from every keyword it followed, returns false if it wasn't subscribed
+    boolean unsubscribe(String buyer) {
+        Set<String> old = subs.remove(buyer);
+        if (old == null) return false;
+        for (String keyword : old) {
+            Set<String> buyers = subscribersByKeyword.get(keyword);
+            if (buyers == null) continue;
+            buyers.remove(buyer);
+            if (buyers.isEmpty()) {
+                subscribersByKeyword.remove(keyword);
+            }
+        }
+        return true;
+    }
 }
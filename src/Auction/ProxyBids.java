@@ -0,0 +1,77 @@
+package Auction;
+
+import jade.core.AID;
+
+import java.util.*;
+
+// ENGLISH proxy bids: maxima sealed at registration, the manager bids for them. The best one leads at one increment
+// over the next best maximum (or over a standing bid from outside), never above its own maximum
+// increment = max(-Dauction.english.minIncrement=<amount> (default 1), price * -Dauction.english.increment=<fraction>
+// (default 0.05)), taken on the price that is being topped
+final class ProxyBids {
+
+    private static final double INCREMENT = Double.parseDouble(System.getProperty("auction.english.increment", "0.05"));
+    private static final double MIN_INCREMENT = Double.parseDouble(System.getProperty("auction.english.minIncrement", "1"));
+
+    record Entry(AID bidder, double max, long seq) {}
+
+    // highest maximum first, the earlier one wins a tie
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingDouble(Entry::max).reversed().thenComparingLong(Entry::seq);
+
+    private final NavigableSet<Entry> sorted = new TreeSet<>(ORDER);
+    private final Map<AID, Entry> byBidder = new HashMap<>();
+    private long seq;
+
+    static double increment(double price) {
+        return Math.max(MIN_INCREMENT, price * INCREMENT);
+    }
+
+    // a bidder registering again replaces its maximum (and goes behind the ones already there on a tie)
+    void put(AID bidder, double max) {
+        Entry e = new Entry(bidder, max, seq++);
+        Entry old = byBidder.put(bidder, e);
+        if (old != null) sorted.remove(old);
+        sorted.add(e);
+    }
+
+    void remove(AID bidder) {
+        Entry old = byBidder.remove(bidder);
+        if (old != null) sorted.remove(old);
+    }
+
+    boolean contains(AID bidder) {
+        return byBidder.containsKey(bidder);
+    }
+
+    boolean isEmpty() {
+        return byBidder.isEmpty();
+    }
+
+    // null if there is none
+    Entry first() {
+        return sorted.isEmpty() ? null : sorted.first();
+    }
+
+    Entry second() {
+        if (sorted.size() < 2) return null;
+        Iterator<Entry> it = sorted.iterator();
+        it.next();
+        return it.next();
+    }
+
+    // every maximum that can't top the price any more (the leader's own aside) -> removed and returned
+    List<Entry> outbid(AID leader, double price) {
+        List<Entry> out = new ArrayList<>();
+        Iterator<Entry> it = sorted.descendingIterator(); // lowest maximum first
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.max() > price) break;
+            if (e.bidder().equals(leader)) continue;
+            it.remove();
+            byBidder.remove(e.bidder());
+            out.add(e);
+        }
+        return out;
+    }
+}
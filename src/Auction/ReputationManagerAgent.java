@@ -5,16 +5,41 @@ import jade.core.Agent;
 import jade.core.behaviours.CyclicBehaviour;
 import jade.lang.acl.ACLMessage;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class ReputationManagerAgent extends Agent {
 
     // stores reputation data for each buyer
     private final Map<String, ReputationRecord> reputations = new HashMap<>();
+    // buyers that cache their own score -> they get it pushed whenever it changes
+    private final Set<String> subscribers = new HashSet<>();
+    // scores survive restarts: every update goes to the store's event log (written in the background)
+    private ReputationStore store;
 
     protected void setup() {
-        System.out.println(getLocalName() + " (ReputationManager) ready.");
+        Metrics.watchInbox(this);
+        Object[] args = getArguments();
+        String dataDir = (args != null && args.length > 0 && args[0] != null) ? args[0].toString() : "data/reputation";
+        store = new ReputationStore(Path.of(dataDir));
+        try {
+            store.open((buyer, c) -> {
+                ReputationRecord rec = new ReputationRecord();
+                rec.joined = c[0];
+                rec.won = c[1];
+                rec.earlyExits = c[2];
+                reputations.put(buyer, rec);
+            });
+        } catch (IOException e) {
+            Log.warn(getLocalName(), "Could not open reputation store, running in memory only: %s", e.getMessage());
+            store = null;
+        }
+
+        Log.info(getLocalName(), "(ReputationManager) ready.");
 
         addBehaviour(new CyclicBehaviour() {
             public void action() {
@@ -32,21 +57,49 @@ public class ReputationManagerAgent extends Agent {
 
                             reputations.putIfAbsent(buyer, new ReputationRecord());
                             ReputationRecord rec = reputations.get(buyer);
+                            int oldScore = rec.score();
 
+                            byte stored;
                             switch (event) {
-                                case "joined" -> rec.joined++;
-                                case "won" -> rec.won++;
-                                case "earlyExit" -> rec.earlyExits++;
+                                case "joined" -> { rec.joined++; stored = ReputationStore.JOINED; }
+                                case "won" -> { rec.won++; stored = ReputationStore.WON; }
+                                case "earlyExit" -> { rec.earlyExits++; stored = ReputationStore.EARLY_EXIT; }
+                                default -> stored = -1;
+                            }
+                            if (store != null && stored >= 0) {
+                                store.append(buyer, stored);
+                            }
+
+                            if (Log.debugEnabled()) {
+                                Log.debug(getLocalName(), "UPDATE: Updated %s — %s ➜ score: %d (joined: %d, won: %d, exits: %d)",
+                                        buyer, event, rec.score(), rec.joined, rec.won, rec.earlyExits);
                             }
 
-                            System.out.printf("[ReputationManager] UPDATE: Updated %s — %s ➜ score: %d (joined: %d, won: %d, exits: %d)%n",
-                                    buyer, event, rec.score(), rec.joined, rec.won, rec.earlyExits);
+                            // only an actual score change invalidates the buyer's cached value
+                            if (rec.score() != oldScore && subscribers.contains(buyer)) {
+                                pushScore(buyer, rec.score());
+                            }
                         }
                     }
 
+                    // buyer wants its score pushed -> send the current one right away, then on every change
+                    else if (msg.getPerformative() == ACLMessage.SUBSCRIBE &&
+                            "REPUTATION_SUBSCRIBE".equals(msg.getOntology())) {
+
+                        String buyer = msg.getContent();
+                        subscribers.add(buyer);
+                        reputations.putIfAbsent(buyer, new ReputationRecord());
+                        pushScore(buyer, reputations.get(buyer).score());
+                    }
+
+                    else if (msg.getPerformative() == ACLMessage.CANCEL &&
+                            "REPUTATION_SUBSCRIBE".equals(msg.getOntology())) {
+                        subscribers.remove(msg.getContent());
+                    }
+
                     // handle score query
                     else if (msg.getPerformative() == ACLMessage.REQUEST &&
-                            msg.getOntology().equals("REPUTATION_QUERY")) {
+                            "REPUTATION_QUERY".equals(msg.getOntology())) {
 
                         String buyer = msg.getContent();
                         reputations.putIfAbsent(buyer, new ReputationRecord());
@@ -66,6 +119,21 @@ public class ReputationManagerAgent extends Agent {
         });
     }
 
+    @Override
+    protected void takeDown() {
+        if (store != null) {
+            store.close(); // flush + final snapshot
+        }
+    }
+
+    private void pushScore(String buyer, int score) {
+        ACLMessage push = new ACLMessage(ACLMessage.INFORM);
+        push.setOntology("REPUTATION_PUSH");
+        push.setContent(String.valueOf(score));
+        push.addReceiver(new AID(buyer, AID.ISLOCALNAME));
+        send(push);
+    }
+
     // helper class - track stats per buyer
     private static class ReputationRecord {
         int joined = 0;
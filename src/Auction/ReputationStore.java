@@ -0,0 +1,263 @@
+package Auction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+// durable reputation data: append-only event log + compact snapshots, all file work on a background thread
+// - events-<gen>.log : [crc32 int][nameLen short][name utf8][event byte] per update, crc over the rest of the record
+// - snapshot.bin     : [magic int][gen int][count int] then [nameLen short][name utf8][joined int][won int][exits int] per buyer
+// the snapshot says from which log generation on the events still have to be replayed. Replay stops at the first
+// torn or corrupt record, the newest log is cut back to there before anything is appended to it
+class ReputationStore {
+
+    static final byte JOINED = 0;
+    static final byte WON = 1;
+    static final byte EARLY_EXIT = 2;
+
+    private static final int MAGIC = 0x52455031; // "REP1"
+    private static final int SNAPSHOT_EVERY = 100_000;  // events between two snapshots
+    private static final long FLUSH_INTERVAL_MS = 200;  // max time an event waits for fsync
+
+    private final Path dir;
+    private final BlockingQueue<Event> queue = new LinkedBlockingQueue<>();
+    // writer thread's own copy of the state, so it can snapshot without touching the agent's records
+    private final Map<String, int[]> mirror = new HashMap<>();
+    private final ByteBuffer writeBuf = ByteBuffer.allocateDirect(64 * 1024);
+    private final CRC32 crc = new CRC32();
+    private Thread writer;
+    private volatile boolean running;
+
+    private FileChannel log;
+    private int generation;
+    private long validEnd;          // end of the last good record of the log replayed last
+    private int eventsSinceSnapshot;
+
+    private record Event(String buyer, byte type) {}
+
+    ReputationStore(Path dir) {
+        this.dir = dir;
+    }
+
+    // reads snapshot + log tail, hands every buyer's counters (joined, won, exits) to the consumer, starts the writer
+    void open(BiConsumer<String, int[]> loaded) throws IOException {
+        Files.createDirectories(dir);
+        long start = System.nanoTime();
+
+        generation = loadSnapshot();
+        int replayed = 0;
+        validEnd = 0;
+        for (int gen : logGenerations()) {
+            if (gen < generation) continue;
+            replayed += replayLog(gen);
+            generation = gen;
+        }
+        mirror.forEach(loaded);
+
+        // keep appending to the newest log, right after its last good record (a torn tail is dropped, otherwise
+        // everything written behind it would be unreachable on the next replay)
+        log = FileChannel.open(logPath(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (log.size() > validEnd) {
+            Log.warn("ReputationStore", "Dropping %d bytes of torn/corrupt records at the end of %s",
+                    log.size() - validEnd, logPath(generation).getFileName());
+            log.truncate(validEnd);
+            log.force(true);
+        }
+        log.position(validEnd);
+
+        Log.info("ReputationStore", "Loaded %d buyers (%d log events replayed) in %d ms",
+                mirror.size(), replayed, (System.nanoTime() - start) / 1_000_000);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "reputation-store");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // called on the update path -> only enqueues, never touches the disk
+    void append(String buyer, byte type) {
+        queue.add(new Event(buyer, type));
+    }
+
+    // flushes everything, writes a final snapshot and stops the writer
+    // (no interrupt: that would close the file channel under the writer's feet)
+    void close() {
+        running = false;
+        if (writer == null) return;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // === writer thread ===
+
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Event first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (first != null) batch.add(first);
+                } catch (InterruptedException e) {
+                    running = false; // drain what's left and stop
+                }
+                queue.drainTo(batch);
+                if (batch.isEmpty()) continue;
+
+                writeBatch(batch);
+                log.force(false); // one fsync per batch
+                eventsSinceSnapshot += batch.size();
+                batch.clear();
+
+                if (eventsSinceSnapshot >= SNAPSHOT_EVERY) {
+                    snapshot();
+                }
+            }
+            if (eventsSinceSnapshot > 0) {
+                snapshot();
+            }
+            log.close();
+        } catch (IOException e) {
+            Log.error("ReputationStore", "Writer stopped: %s", e.getMessage());
+        }
+    }
+
+    private void writeBatch(List<Event> batch) throws IOException {
+        for (Event e : batch) {
+            byte[] name = e.buyer().getBytes(StandardCharsets.UTF_8);
+            if (writeBuf.remaining() < 4 + 2 + name.length + 1) {
+                drain();
+            }
+            int start = writeBuf.position();
+            writeBuf.putInt(0).putShort((short) name.length).put(name).put(e.type());
+            crc.reset();
+            crc.update(writeBuf.duplicate().position(start + 4).limit(writeBuf.position()));
+            writeBuf.putInt(start, (int) crc.getValue());
+            apply(e.buyer(), e.type());
+        }
+        drain();
+    }
+
+    private void drain() throws IOException {
+        writeBuf.flip();
+        while (writeBuf.hasRemaining()) {
+            log.write(writeBuf);
+        }
+        writeBuf.clear();
+    }
+
+    private void apply(String buyer, byte type) {
+        int[] counters = mirror.computeIfAbsent(buyer, _ -> new int[3]);
+        counters[type]++;
+    }
+
+    // rotate to a new log, write the snapshot next to it, then drop the logs the snapshot covers
+    private void snapshot() throws IOException {
+        log.close();
+        generation++;
+        log = FileChannel.open(logPath(generation), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        Path tmp = dir.resolve("snapshot.bin.tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeBuf.clear();
+            writeBuf.putInt(MAGIC).putInt(generation).putInt(mirror.size());
+            for (Map.Entry<String, int[]> e : mirror.entrySet()) {
+                byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+                if (writeBuf.remaining() < 2 + name.length + 12) {
+                    writeBuf.flip();
+                    while (writeBuf.hasRemaining()) out.write(writeBuf);
+                    writeBuf.clear();
+                }
+                int[] c = e.getValue();
+                writeBuf.putShort((short) name.length).put(name).putInt(c[0]).putInt(c[1]).putInt(c[2]);
+            }
+            writeBuf.flip();
+            while (writeBuf.hasRemaining()) out.write(writeBuf);
+            writeBuf.clear();
+            out.force(true);
+        }
+        Files.move(tmp, dir.resolve("snapshot.bin"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (int gen : logGenerations()) {
+            if (gen < generation) Files.deleteIfExists(logPath(gen));
+        }
+        eventsSinceSnapshot = 0;
+    }
+
+    // === loading ===
+
+    // returns the first log generation that is not part of the snapshot
+    private int loadSnapshot() throws IOException {
+        Path file = dir.resolve("snapshot.bin");
+        if (!Files.exists(file)) return 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.remaining() < 12 || buf.getInt() != MAGIC) {
+                throw new IOException("Corrupt reputation snapshot " + file);
+            }
+            int gen = buf.getInt();
+            int count = buf.getInt();
+            byte[] name = new byte[Short.MAX_VALUE];
+            for (int i = 0; i < count; i++) {
+                int len = buf.getShort();
+                buf.get(name, 0, len);
+                mirror.put(new String(name, 0, len, StandardCharsets.UTF_8),
+                        new int[]{buf.getInt(), buf.getInt(), buf.getInt()});
+            }
+            return gen;
+        }
+    }
+
+    // sets validEnd to the end of the last record that was read back whole and with a matching checksum
+    private int replayLog(int gen) throws IOException {
+        int events = 0;
+        validEnd = 0;
+        try (FileChannel ch = FileChannel.open(logPath(gen), StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            byte[] name = new byte[Short.MAX_VALUE];
+            while (buf.remaining() >= 4 + 2 + 1) {
+                int sum = buf.getInt();
+                int bodyStart = buf.position();
+                int len = buf.getShort();
+                if (len < 0 || buf.remaining() < len + 1) break; // torn write at the tail
+                crc.reset();
+                crc.update(buf.duplicate().position(bodyStart).limit(bodyStart + 2 + len + 1));
+                if ((int) crc.getValue() != sum) break;          // garbled record
+                buf.get(name, 0, len);
+                byte type = buf.get();
+                if (type < JOINED || type > EARLY_EXIT) break;
+                apply(new String(name, 0, len, StandardCharsets.UTF_8), type);
+                events++;
+                validEnd = buf.position();
+            }
+        }
+        return events;
+    }
+
+    private List<Integer> logGenerations() throws IOException {
+        List<Integer> gens = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "events-*.log")) {
+            for (Path p : files) {
+                String n = p.getFileName().toString();
+                gens.add(Integer.parseInt(n.substring(7, n.length() - 4)));
+            }
+        }
+        Collections.sort(gens);
+        return gens;
+    }
+
+    private Path logPath(int gen) {
+        return dir.resolve("events-" + gen + ".log");
+    }
+}
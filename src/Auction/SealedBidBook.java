@@ -0,0 +1,154 @@
+package Auction;
+
+import jade.core.AID;
+
+import java.util.Arrays;
+
+// how the winner of a sealed-bid (BLIND) auction pays
+enum SealedPricing {
+    FIRST_PRICE,   // own bid
+    SECOND_PRICE   // Vickrey: second highest bid, at least the starting price, never more than the own bid
+}
+
+// sealed bids of one BLIND auction: the current bid of every registered bidder, indexed by its BidBook slot
+// (the BidBook keeps every bid, this only the one that counts) -> 100k bids are a few MB of doubles/ints
+final class SealedBidBook {
+
+    // outcome of the auction, winner null if nobody bid
+    record Outcome(AID winner, double price, int bids) {}
+
+    private final BidBook book;                 // bidder slots + the full bid log
+    private boolean[] registered = new boolean[16];
+    private double[] amounts = new double[16];  // NaN = no bid (yet)
+    private int[] arrival = new int[16];        // index of the bid in the book, earlier bid wins a tie
+    private boolean[] withdrawn = new boolean[16];
+    private boolean[] watching = new boolean[16]; // registered, but only waited for once it bids
+    private int size;         // slots covered by the arrays
+    private int registeredCount;
+    private int expected;     // registered and not withdrawn
+    private int submitted;    // slots with a bid
+
+    SealedBidBook(BidBook book) {
+        this.book = book;
+    }
+
+    // a bidder joined; idempotent
+    void register(AID bidder) {
+        int slot = book.intern(bidder);
+        cover(slot);
+        if (registered[slot]) {
+            if (watching[slot]) {
+                watching[slot] = false;
+                registeredCount++;
+                expected++;
+            } else if (withdrawn[slot]) {
+                withdrawn[slot] = false;
+                expected++;
+            }
+            return;
+        }
+        registered[slot] = true;
+        registeredCount++;
+        expected++;
+    }
+
+    // a bidder that may bid but isn't waited for until it does (the user's GUI joins every auction it shows,
+    // mostly just to watch); idempotent, no-op for a bidder already registered
+    void watch(AID bidder) {
+        int slot = book.intern(bidder);
+        cover(slot);
+        if (registered[slot]) return;
+        registered[slot] = true;
+        watching[slot] = true;
+    }
+
+    // a bidder left before bidding -> no longer waited for (a bid that is already in stays binding)
+    void withdraw(AID bidder) {
+        int slot = registeredSlot(bidder);
+        if (slot < 0 || watching[slot] || withdrawn[slot] || !Double.isNaN(amounts[slot])) return;
+        withdrawn[slot] = true;
+        expected--;
+    }
+
+    // false if the sender never registered; a second bid from the same bidder replaces the first,
+    // a withdrawn bidder that bids after all is waited for again, a watching one from now on
+    boolean submit(AID bidder, double amount) {
+        int slot = registeredSlot(bidder);
+        if (slot < 0 || Double.isNaN(amount) || amount <= 0) return false;
+        if (watching[slot]) {
+            watching[slot] = false;
+            registeredCount++;
+            expected++;
+        } else if (withdrawn[slot]) {
+            withdrawn[slot] = false;
+            expected++;
+        }
+        if (Double.isNaN(amounts[slot])) {
+            submitted++;
+        }
+        amounts[slot] = amount;
+        arrival[slot] = book.add(slot, amount);
+        return true;
+    }
+
+    boolean hasBid(AID bidder) {
+        int slot = registeredSlot(bidder);
+        return slot >= 0 && !Double.isNaN(amounts[slot]);
+    }
+
+    int submitted() {
+        return submitted;
+    }
+
+    // everyone still in the auction has bid (or everyone who registered left / was refused)
+    // -> no reason to keep the window open
+    boolean allSubmitted() {
+        return registeredCount > 0 && submitted >= expected;
+    }
+
+    // one pass for the best and the second best bid
+    Outcome resolve(SealedPricing pricing, double startingPrice) {
+        int best = -1;
+        double second = Double.NaN;
+        for (int i = 0; i < size; i++) {
+            double a = amounts[i];
+            if (Double.isNaN(a)) continue;
+            if (best < 0) {
+                best = i;
+            } else if (a > amounts[best] || (a == amounts[best] && arrival[i] < arrival[best])) {
+                second = amounts[best];
+                best = i;
+            } else if (Double.isNaN(second) || a > second) {
+                second = a;
+            }
+        }
+        if (best < 0) return new Outcome(null, -1, 0);
+
+        double top = amounts[best];
+        double price = switch (pricing) {
+            case FIRST_PRICE -> top;
+            case SECOND_PRICE -> Math.min(top, Double.isNaN(second) ? startingPrice : Math.max(second, startingPrice));
+        };
+        return new Outcome(book.bidder(best), price, submitted);
+    }
+
+    private int registeredSlot(AID bidder) {
+        int slot = book.slotOf(bidder);
+        return slot >= 0 && slot < size && registered[slot] ? slot : -1;
+    }
+
+    // arrays reach up to the slot, new entries start without a bid
+    private void cover(int slot) {
+        if (slot < size) return;
+        if (slot >= amounts.length) {
+            int n = Math.max(amounts.length * 2, slot + 1);
+            registered = Arrays.copyOf(registered, n);
+            amounts = Arrays.copyOf(amounts, n);
+            arrival = Arrays.copyOf(arrival, n);
+            withdrawn = Arrays.copyOf(withdrawn, n);
+            watching = Arrays.copyOf(watching, n);
+        }
+        Arrays.fill(amounts, size, slot + 1, Double.NaN);
+        size = slot + 1;
+    }
+}
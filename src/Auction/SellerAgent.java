@@ -1,8 +1,10 @@
 package Auction;
-import jade.core.AID;
 import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
 import jade.core.behaviours.OneShotBehaviour;
+import jade.core.behaviours.WakerBehaviour;
 import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
 
 public class SellerAgent extends Agent {
     private String sellerName;
@@ -12,13 +14,43 @@ public class SellerAgent extends Agent {
         // create the first auction to get things going
         addBehaviour(new OneShotBehaviour() {
             public void action() {
-                ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
-                msg.addReceiver(new AID("auction-manager", AID.ISLOCALNAME));
-                msg.setContent("NEW_AUCTION;Title=The Hobbit;Author=Tolkien;Genre=Fantasy;Type=ENGLISH;StartingPrice=1000.0");
-                send(msg);
-                System.out.println(sellerName + " published The Hobbit auction.");
+                AuctionSpec spec = new AuctionSpec(null, "The Hobbit", "Tolkien", "Fantasy", AuctionType.ENGLISH, 1000.0, 0);
+                publish(spec);
+                Log.info(sellerName, "published The Hobbit auction.");
+            }
+        });
+
+        // the manager's queue was full -> try again when it says so
+        addBehaviour(new CyclicBehaviour() {
+            public void action() {
+                ACLMessage msg = receive(MessageTemplate.and(
+                        MessageTemplate.MatchPerformative(ACLMessage.REFUSE), MessageTemplate.MatchOntology("NEW_AUCTION")));
+                if (msg != null) {
+                    AuctionSpec spec;
+                    try {
+                        spec = AuctionCodec.decodeSpec(msg.getByteSequenceContent());
+                    } catch (IllegalArgumentException e) {
+                        return;
+                    }
+                    long delay = Long.parseLong(msg.getUserDefinedParameter("retry-after"));
+                    Log.info(sellerName, "auction queue full, retrying %s in %d ms", spec.title(), delay);
+                    addBehaviour(new WakerBehaviour(myAgent, delay) {
+                        protected void onWake() {
+                            publish(spec);
+                        }
+                    });
+                } else {
+                    block();
+                }
             }
         });
     }
-}
 
+    private void publish(AuctionSpec spec) {
+        ACLMessage msg = new ACLMessage(ACLMessage.REQUEST);
+        msg.addReceiver(AuctionRouter.managerFor(spec));
+        msg.setOntology("NEW_AUCTION");
+        msg.setByteSequenceContent(AuctionCodec.encode(spec));
+        send(msg);
+    }
+}
@@ -0,0 +1,171 @@
+package Auction;
+
+// hierarchical timing wheel: all timers of one agent in LEVELS wheels of SLOTS slots each, level k slots are
+// SLOTS^k ticks wide (10 ms ticks -> 2.5 s, 11 min, 46 h, 497 days). A timer sits in an intrusive doubly linked list
+// -> O(1) schedule and cancel; advancing one tick fires one level-0 slot, and every SLOTS^k ticks one level-k slot is
+// cascaded down. Empty stretches are skipped, not stepped through, and nextDelayMillis() tells the owner how long it
+// can sleep. Not thread-safe: only the owning agent's thread uses it
+final class TimingWheel {
+
+    private static final int BITS = 8;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (BITS * LEVELS)) - 1; // further out -> parked at the top, re-placed later
+
+    final class Timer {
+        private final Runnable task;
+        private final long deadline; // tick
+        private Timer prev, next;
+
+        private Timer(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        boolean isPending() {
+            return prev != null;
+        }
+
+        // no-op if it already fired or was cancelled
+        void cancel() {
+            if (prev == null) return;
+            unlink(this);
+            size--;
+        }
+    }
+
+    private final long tickMillis;
+    private final long tickNanos;
+    private final long originNanos = System.nanoTime();
+    private final Timer[][] slots = new Timer[LEVELS][SLOTS]; // sentinel heads
+    private long currentTick;
+    private int size;
+
+    TimingWheel(long tickMillis) {
+        if (tickMillis < 1) throw new IllegalArgumentException("Invalid tick: " + tickMillis + "ms");
+        this.tickMillis = tickMillis;
+        this.tickNanos = tickMillis * 1_000_000;
+        for (Timer[] level : slots) {
+            for (int i = 0; i < SLOTS; i++) {
+                Timer head = new Timer(null, 0);
+                head.prev = head.next = head;
+                level[i] = head;
+            }
+        }
+    }
+
+    long tickMillis() {
+        return tickMillis;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // runs the task on the first advance() at least delay ms from now (rounded up to a tick, 0 -> next tick)
+    Timer schedule(long delayMillis, Runnable task) {
+        long due = Math.ceilDiv(elapsedNanos() + Math.max(0, delayMillis) * 1_000_000, tickNanos);
+        Timer t = new Timer(task, Math.max(currentTick + 1, due));
+        place(t);
+        size++;
+        return t;
+    }
+
+    // fires everything that is due by now, in deadline order; returns how many fired
+    int advance() {
+        long target = elapsedNanos() / tickNanos;
+        int fired = 0;
+        while (size > 0) {
+            long next = nextTick(); // ticks in between have nothing to fire or cascade
+            if (next > target) break;
+            currentTick = next;
+            cascade();
+            fired += fire(slots[0][(int) (currentTick & MASK)]);
+        }
+        currentTick = Math.max(currentTick, target);
+        return fired;
+    }
+
+    // ms until the next advance() has something to do (fire or cascade), -1 if the wheel is empty
+    long nextDelayMillis() {
+        if (size == 0) return -1;
+        long nanos = nextTick() * tickNanos - elapsedNanos();
+        return Math.max(0, Math.ceilDiv(nanos, 1_000_000));
+    }
+
+    // first tick after the current one with a non-empty level-0 slot, or a non-empty higher slot to cascade.
+    // A level-k slot is poured down at its start boundary; no level can hold anything before the next boundary
+    // of the level below it -> the scan stops as soon as the best tick so far comes before that
+    private long nextTick() {
+        long best = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = BITS * level;
+            long base = currentTick >>> shift;
+            if (((base + 1) << shift) > best) break;
+            for (int j = 1; j <= SLOTS; j++) {
+                Timer head = slots[level][(int) ((base + j) & MASK)];
+                if (head.next != head) {
+                    best = Math.min(best, (base + j) << shift);
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    // every level whose lower levels just wrapped around pours its current slot down (highest first)
+    private void cascade() {
+        int top = 0;
+        while (top + 1 < LEVELS && (currentTick & ((1L << (BITS * (top + 1))) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            Timer head = slots[level][(int) ((currentTick >>> (BITS * level)) & MASK)];
+            Timer t = head.next;
+            head.next = head.prev = head;
+            while (t != head) {
+                Timer next = t.next;
+                place(t);
+                t = next;
+            }
+        }
+    }
+
+    // one timer at a time: a task may cancel another timer of the same slot (new ones always land elsewhere)
+    private int fire(Timer head) {
+        int fired = 0;
+        while (head.next != head) {
+            Timer t = head.next;
+            unlink(t);
+            size--;
+            fired++;
+            t.task.run();
+        }
+        return fired;
+    }
+
+    private void place(Timer t) {
+        long delta = Math.min(Math.max(0, t.deadline - currentTick), MAX_DELTA);
+        long at = currentTick + delta;
+        int level = 0;
+        while (level + 1 < LEVELS && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        Timer head = slots[level][(int) ((at >>> (BITS * level)) & MASK)];
+        t.prev = head.prev;
+        t.next = head;
+        head.prev.next = t;
+        head.prev = t;
+    }
+
+    private static void unlink(Timer t) {
+        t.prev.next = t.next;
+        t.next.prev = t.prev;
+        t.prev = t.next = null;
+    }
+
+    private long elapsedNanos() {
+        return System.nanoTime() - originNanos;
+    }
+}